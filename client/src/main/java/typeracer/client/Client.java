@@ -10,6 +10,7 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import typeracer.client.messagehandling.CharacterResponseHandler;
 import typeracer.client.messagehandling.CreateSessionResponseHandler;
 import typeracer.client.messagehandling.GameStateNotificationHandler;
@@ -20,8 +21,10 @@ import typeracer.client.messagehandling.MessageHandler;
 import typeracer.client.messagehandling.PlayerLeftNotificationHandler;
 import typeracer.client.messagehandling.PlayerStateNotificationHandler;
 import typeracer.client.messagehandling.PlayerUpdateNotificationHandler;
+import typeracer.client.messagehandling.RaceSnapshotNotificationHandler;
 import typeracer.client.messagehandling.ReadyResponseHandler;
 import typeracer.client.messagehandling.TextNotificationHandler;
+import typeracer.communication.Capabilities;
 import typeracer.communication.messages.Message;
 import typeracer.communication.messages.MoshiAdapter;
 import typeracer.communication.messages.client.HandshakeRequest;
@@ -134,7 +137,7 @@ final class Client {
    */
   public void start(String username) {
     messageHandlerChain = createMessageHandlerChain();
-    sendMessage(new HandshakeRequest(username));
+    sendMessage(new HandshakeRequest(username, List.of(Capabilities.RACE_SNAPSHOT)));
 
     try {
       reader =
@@ -188,9 +191,12 @@ final class Client {
     MessageHandler playerStateNotificationHandler =
         MessageHandler.create(
             PlayerStateNotificationHandler.class, textNotificationHandler, viewController);
+    MessageHandler raceSnapshotNotificationHandler =
+        MessageHandler.create(
+            RaceSnapshotNotificationHandler.class, playerStateNotificationHandler, viewController);
     MessageHandler gameStateNotificationHandler =
         MessageHandler.create(
-            GameStateNotificationHandler.class, playerStateNotificationHandler, viewController);
+            GameStateNotificationHandler.class, raceSnapshotNotificationHandler, viewController);
     MessageHandler playerLeftNotificationHandler =
         MessageHandler.create(
             PlayerLeftNotificationHandler.class, gameStateNotificationHandler, viewController);
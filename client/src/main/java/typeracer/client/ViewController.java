@@ -2,6 +2,7 @@ package typeracer.client;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -25,6 +26,7 @@ import typeracer.communication.messages.client.CreateSessionRequest;
 import typeracer.communication.messages.client.JoinSessionRequest;
 import typeracer.communication.messages.client.LeaveSessionRequest;
 import typeracer.communication.messages.client.ReadyRequest;
+import typeracer.communication.messages.server.RaceSnapshotNotification.PlayerState;
 
 /** Manages the transition between different scenes and states in the TypeRacer game application. */
 public class ViewController extends Application {
@@ -396,6 +398,23 @@ public class ViewController extends Application {
         });
   }
 
+  /**
+   * Updates the player information of all players in the snapshot at once.
+   *
+   * @param playerStates the states of all players
+   */
+  public void updateRaceSnapshot(List<PlayerState> playerStates) {
+    Platform.runLater(
+        () -> {
+          for (PlayerState playerState : playerStates) {
+            int playerId = playerState.getPlayerId();
+            playerData.setPlayerWpms(playerId, playerState.getWpm());
+            playerData.setPlayerAccuracies(playerId, playerState.getAccuracy());
+            playerData.setPlayerProgresses(playerId, playerState.getProgress());
+          }
+        });
+  }
+
   /**
    * Returns the current username.
    *
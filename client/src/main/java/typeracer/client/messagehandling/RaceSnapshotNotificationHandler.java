@@ -0,0 +1,41 @@
+package typeracer.client.messagehandling;
+
+import typeracer.client.ViewController;
+import typeracer.communication.messages.Message;
+import typeracer.communication.messages.server.RaceSnapshotNotification;
+
+/**
+ * Handles RaceSnapshotNotification messages in a chain of responsibility pattern. If the message is
+ * not of the specified type, it will be passed to the next handler in the chain, if any.
+ */
+public class RaceSnapshotNotificationHandler implements MessageHandler {
+
+  private final MessageHandler nextHandler;
+  private final ViewController viewController;
+
+  /**
+   * Constructs a RaceSnapshotNotificationHandler. Initializes the handler with the specified next
+   * handler and view controller.
+   *
+   * @param nextHandler the next handler in the chain of responsibility.
+   * @param viewController the view controller used to update the view.
+   */
+  RaceSnapshotNotificationHandler(MessageHandler nextHandler, ViewController viewController) {
+    this.nextHandler = nextHandler;
+    this.viewController = viewController;
+  }
+
+  /**
+   * Handles the incoming messages.
+   *
+   * @param message the message to handle
+   */
+  @Override
+  public void handleMessage(Message message) {
+    if (message instanceof RaceSnapshotNotification raceSnapshotNotification) {
+      viewController.updateRaceSnapshot(raceSnapshotNotification.getPlayers());
+    } else if (nextHandler != null) {
+      nextHandler.handleMessage(message);
+    }
+  }
+}
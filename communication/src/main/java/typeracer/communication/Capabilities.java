@@ -0,0 +1,25 @@
+package typeracer.communication;
+
+/**
+ * Optional protocol features a client and the server may agree on during the handshake. A client
+ * lists the capabilities it supports in its {@link
+ * typeracer.communication.messages.client.HandshakeRequest}, and the server answers with those it
+ * supports as well. Clients that do not list any capabilities receive the original protocol.
+ */
+public final class Capabilities {
+
+  /**
+   * The client understands {@link
+   * typeracer.communication.messages.server.RaceSnapshotNotification}s, which replace the
+   * per-player {@link typeracer.communication.messages.server.PlayerStateNotification}s.
+   */
+  public static final String RACE_SNAPSHOT = "RaceSnapshot";
+
+  /**
+   * The server accepts {@link typeracer.communication.messages.client.CharacterBatchRequest}s
+   * carrying several typed characters at once.
+   */
+  public static final String CHARACTER_BATCH = "CharacterBatch";
+
+  private Capabilities() {}
+}
@@ -4,12 +4,14 @@ import com.squareup.moshi.JsonAdapter;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.adapters.PolymorphicJsonAdapterFactory;
 import java.io.IOException;
+import typeracer.communication.messages.client.CharacterBatchRequest;
 import typeracer.communication.messages.client.CharacterRequest;
 import typeracer.communication.messages.client.CreateSessionRequest;
 import typeracer.communication.messages.client.HandshakeRequest;
 import typeracer.communication.messages.client.JoinSessionRequest;
 import typeracer.communication.messages.client.LeaveSessionRequest;
 import typeracer.communication.messages.client.ReadyRequest;
+import typeracer.communication.messages.server.CharacterBatchResponse;
 import typeracer.communication.messages.server.CharacterResponse;
 import typeracer.communication.messages.server.CreateSessionResponse;
 import typeracer.communication.messages.server.GameStateNotification;
@@ -19,6 +21,7 @@ import typeracer.communication.messages.server.LeaveSessionResponse;
 import typeracer.communication.messages.server.PlayerLeftNotification;
 import typeracer.communication.messages.server.PlayerStateNotification;
 import typeracer.communication.messages.server.PlayerUpdateNotification;
+import typeracer.communication.messages.server.RaceSnapshotNotification;
 import typeracer.communication.messages.server.ReadyResponse;
 import typeracer.communication.messages.server.TextNotification;
 
@@ -36,12 +39,14 @@ public class MoshiAdapter {
         new Moshi.Builder()
             .add(
                 PolymorphicJsonAdapterFactory.of(Message.class, "messageType")
+                    .withSubtype(CharacterBatchRequest.class, "CharacterBatchRequest")
                     .withSubtype(CharacterRequest.class, "CharacterRequest")
                     .withSubtype(CreateSessionRequest.class, "CreateSessionRequest")
                     .withSubtype(HandshakeRequest.class, "HandshakeRequest")
                     .withSubtype(JoinSessionRequest.class, "JoinSessionRequest")
                     .withSubtype(LeaveSessionRequest.class, "LeaveSessionRequest")
                     .withSubtype(ReadyRequest.class, "ReadyRequest")
+                    .withSubtype(CharacterBatchResponse.class, "CharacterBatchResponse")
                     .withSubtype(CharacterResponse.class, "CharacterResponse")
                     .withSubtype(CreateSessionResponse.class, "CreateSessionResponse")
                     .withSubtype(GameStateNotification.class, "GameStateNotification")
@@ -51,6 +56,7 @@ public class MoshiAdapter {
                     .withSubtype(PlayerLeftNotification.class, "PlayerLeftNotification")
                     .withSubtype(PlayerStateNotification.class, "PlayerStateNotification")
                     .withSubtype(PlayerUpdateNotification.class, "PlayerUpdateNotification")
+                    .withSubtype(RaceSnapshotNotification.class, "RaceSnapshotNotification")
                     .withSubtype(ReadyResponse.class, "ReadyResponse")
                     .withSubtype(TextNotification.class, "TextNotification"))
             .build();
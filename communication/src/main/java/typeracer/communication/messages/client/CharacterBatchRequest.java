@@ -0,0 +1,47 @@
+package typeracer.communication.messages.client;
+
+import typeracer.communication.messages.Message;
+
+/**
+ * Request containing a run of typed characters. This request is sent from a client to the server
+ * instead of one {@link CharacterRequest} per character, e.g. by a client that collects the keys
+ * typed within a few milliseconds. The server answers with a single {@link
+ * typeracer.communication.messages.server.CharacterBatchResponse}. Clients should only send it if
+ * the server negotiated {@link typeracer.communication.Capabilities#CHARACTER_BATCH}.
+ */
+public final class CharacterBatchRequest implements Message {
+
+  private final String characters;
+  private final int[] timeOffsets;
+
+  /**
+   * Constructs a new CharacterBatchRequest with the specified arguments.
+   *
+   * @param characters the typed characters in the order they were typed
+   * @param timeOffsets for every character, the milliseconds since the first character of the
+   *     batch was typed, so the first offset is 0 and none is smaller than the one before. May be
+   *     null, in which case every character counts as typed when the batch arrives
+   */
+  public CharacterBatchRequest(String characters, int[] timeOffsets) {
+    this.characters = characters;
+    this.timeOffsets = timeOffsets == null ? null : timeOffsets.clone();
+  }
+
+  /**
+   * Returns the typed characters.
+   *
+   * @return the typed characters in the order they were typed
+   */
+  public String getCharacters() {
+    return characters;
+  }
+
+  /**
+   * Returns when each character was typed, relative to the first character of the batch.
+   *
+   * @return the time offsets in milliseconds, or null if the client did not send them
+   */
+  public int[] getTimeOffsets() {
+    return timeOffsets == null ? null : timeOffsets.clone();
+  }
+}
@@ -1,5 +1,6 @@
 package typeracer.communication.messages.client;
 
+import java.util.List;
 import typeracer.communication.messages.Message;
 
 /**
@@ -9,14 +10,26 @@ import typeracer.communication.messages.Message;
 public final class HandshakeRequest implements Message {
 
   private final String playerName;
+  private final List<String> capabilities;
 
   /**
-   * Constructs a new HandshakeRequest with the specified arguments.
+   * Constructs a new HandshakeRequest without any {@link typeracer.communication.Capabilities}.
    *
    * @param playerName the name of the player attempting to connect
    */
   public HandshakeRequest(String playerName) {
+    this(playerName, null);
+  }
+
+  /**
+   * Constructs a new HandshakeRequest with the specified arguments.
+   *
+   * @param playerName the name of the player attempting to connect
+   * @param capabilities the {@link typeracer.communication.Capabilities} the client supports
+   */
+  public HandshakeRequest(String playerName, List<String> capabilities) {
     this.playerName = playerName;
+    this.capabilities = capabilities == null ? null : List.copyOf(capabilities);
   }
 
   /**
@@ -27,4 +40,13 @@ public final class HandshakeRequest implements Message {
   public String getPlayerName() {
     return playerName;
   }
+
+  /**
+   * Returns the capabilities the client supports, or null if it did not send any.
+   *
+   * @return the client's capabilities, null if none were sent
+   */
+  public List<String> getCapabilities() {
+    return capabilities;
+  }
 }
@@ -0,0 +1,46 @@
+package typeracer.communication.messages.server;
+
+import typeracer.communication.messages.Message;
+
+/**
+ * Response acknowledging a {@link typeracer.communication.messages.client.CharacterBatchRequest}.
+ * This response is sent from the server to a specific client after receiving the batch from that
+ * client. Instead of the correctness of every character, it tells how far into the text the player
+ * got and where the batch went wrong first.
+ */
+public final class CharacterBatchResponse implements Message {
+
+  private final int textIndex;
+  private final int firstError;
+
+  /**
+   * Constructs a new CharacterBatchResponse with the specified arguments.
+   *
+   * @param textIndex the number of characters of the text the player has typed correctly
+   * @param firstError the position within the batch of the first incorrect character, -1 if every
+   *     character was correct
+   */
+  public CharacterBatchResponse(int textIndex, int firstError) {
+    this.textIndex = textIndex;
+    this.firstError = firstError;
+  }
+
+  /**
+   * Returns the number of characters of the text the player has typed correctly after the batch,
+   * which is also the position of the next character to type.
+   *
+   * @return the player's position in the text
+   */
+  public int getTextIndex() {
+    return textIndex;
+  }
+
+  /**
+   * Returns the position within the batch of the first incorrect character.
+   *
+   * @return the position of the first error, -1 if every character was correct
+   */
+  public int getFirstError() {
+    return firstError;
+  }
+}
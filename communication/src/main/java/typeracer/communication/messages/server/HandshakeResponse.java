@@ -1,5 +1,6 @@
 package typeracer.communication.messages.server;
 
+import java.util.List;
 import typeracer.communication.messages.Message;
 import typeracer.communication.statuscodes.PermissionStatus;
 import typeracer.communication.statuscodes.Reason;
@@ -15,18 +16,33 @@ public final class HandshakeResponse implements Message {
   private final PermissionStatus connectionStatus;
   private final int playerId;
   private final Reason reason;
+  private final List<String> capabilities;
 
   /**
-   * Constructs a new HandshakeResponse with the specified arguments.
+   * Constructs a new HandshakeResponse without any {@link typeracer.communication.Capabilities}.
    *
    * @param connectionStatus the status of the request, indicating whether connecting is allowed
    * @param playerId the id of the player
    * @param reason the reason for a denied connection, null otherwise
    */
   public HandshakeResponse(PermissionStatus connectionStatus, int playerId, Reason reason) {
+    this(connectionStatus, playerId, reason, null);
+  }
+
+  /**
+   * Constructs a new HandshakeResponse with the specified arguments.
+   *
+   * @param connectionStatus the status of the request, indicating whether connecting is allowed
+   * @param playerId the id of the player
+   * @param reason the reason for a denied connection, null otherwise
+   * @param capabilities the capabilities the server agreed on, null if the client requested none
+   */
+  public HandshakeResponse(
+      PermissionStatus connectionStatus, int playerId, Reason reason, List<String> capabilities) {
     this.connectionStatus = connectionStatus;
     this.playerId = playerId;
     this.reason = reason;
+    this.capabilities = capabilities == null ? null : List.copyOf(capabilities);
   }
 
   /**
@@ -55,4 +71,13 @@ public final class HandshakeResponse implements Message {
   public Reason getReason() {
     return reason;
   }
+
+  /**
+   * Returns the capabilities the server agreed on, or null if the client did not request any.
+   *
+   * @return the agreed capabilities, null if none were requested
+   */
+  public List<String> getCapabilities() {
+    return capabilities;
+  }
 }
@@ -0,0 +1,193 @@
+package typeracer.communication.messages.server;
+
+import java.util.List;
+import typeracer.communication.messages.Message;
+
+/**
+ * Notification containing the state of every player in a game. This notification is sent from the
+ * server to every client that negotiated {@link typeracer.communication.Capabilities#RACE_SNAPSHOT}
+ * during the handshake, once per tick, instead of one {@link PlayerStateNotification} per player.
+ * Players whose state did not change since the previous snapshot are left out, except in keyframes.
+ */
+public final class RaceSnapshotNotification implements Message {
+
+  private final List<PlayerState> players;
+  private final boolean keyframe;
+
+  /**
+   * Constructs a new RaceSnapshotNotification with the specified arguments.
+   *
+   * @param players the states of all players that changed
+   * @param keyframe whether the snapshot contains every player in the game
+   */
+  public RaceSnapshotNotification(List<PlayerState> players, boolean keyframe) {
+    this.players = List.copyOf(players);
+    this.keyframe = keyframe;
+  }
+
+  /**
+   * Returns the states of all players that changed since the previous snapshot.
+   *
+   * @return the states of the changed players
+   */
+  public List<PlayerState> getPlayers() {
+    return players;
+  }
+
+  /**
+   * Returns whether this snapshot contains every player in the game.
+   *
+   * @return <code>true</code> if this is a keyframe, <code>false</code> otherwise
+   */
+  public boolean isKeyframe() {
+    return keyframe;
+  }
+
+  /** The state of a single player within a {@link RaceSnapshotNotification}. */
+  public static final class PlayerState {
+
+    private final double accuracy;
+    private final int playerId;
+    private final double progress;
+    private final double wpm;
+    private final RollingStats rolling;
+
+    /**
+     * Constructs a new PlayerState without rolling statistics.
+     *
+     * @param accuracy the accuracy of the player
+     * @param playerId the id of the player
+     * @param progress the progress of the player
+     * @param wpm the words per minute of the player
+     */
+    public PlayerState(double accuracy, int playerId, double progress, double wpm) {
+      this(accuracy, playerId, progress, wpm, null);
+    }
+
+    /**
+     * Constructs a new PlayerState with the specified arguments.
+     *
+     * @param accuracy the accuracy of the player
+     * @param playerId the id of the player
+     * @param progress the progress of the player
+     * @param wpm the words per minute of the player
+     * @param rolling the statistics of the last seconds, or null if the server does not send them
+     */
+    public PlayerState(
+        double accuracy, int playerId, double progress, double wpm, RollingStats rolling) {
+      this.accuracy = accuracy;
+      this.playerId = playerId;
+      this.progress = progress;
+      this.wpm = wpm;
+      this.rolling = rolling;
+    }
+
+    /**
+     * Returns the accuracy of the player.
+     *
+     * @return the player's accuracy
+     */
+    public double getAccuracy() {
+      return accuracy;
+    }
+
+    /**
+     * Returns the id of the player.
+     *
+     * @return the player's id
+     */
+    public int getPlayerId() {
+      return playerId;
+    }
+
+    /**
+     * Returns the progress of the player.
+     *
+     * @return the player's progress
+     */
+    public double getProgress() {
+      return progress;
+    }
+
+    /**
+     * Returns the words per minute of the player.
+     *
+     * @return the player's word per minute
+     */
+    public double getWpm() {
+      return wpm;
+    }
+
+    /**
+     * Returns the typing speed and accuracy of the player within the last seconds.
+     *
+     * @return the player's rolling statistics, or null if the server does not send them
+     */
+    public RollingStats getRolling() {
+      return rolling;
+    }
+  }
+
+  /**
+   * The typing speed and accuracy of a player within the last 5 and 15 seconds, unlike those of
+   * {@link PlayerState}, which are measured since the start of the game.
+   */
+  public static final class RollingStats {
+
+    private final double accuracy5s;
+    private final double accuracy15s;
+    private final double wpm5s;
+    private final double wpm15s;
+
+    /**
+     * Constructs a new RollingStats with the specified arguments.
+     *
+     * @param accuracy5s the accuracy within the last 5 seconds
+     * @param accuracy15s the accuracy within the last 15 seconds
+     * @param wpm5s the words per minute within the last 5 seconds
+     * @param wpm15s the words per minute within the last 15 seconds
+     */
+    public RollingStats(double accuracy5s, double accuracy15s, double wpm5s, double wpm15s) {
+      this.accuracy5s = accuracy5s;
+      this.accuracy15s = accuracy15s;
+      this.wpm5s = wpm5s;
+      this.wpm15s = wpm15s;
+    }
+
+    /**
+     * Returns the accuracy within the last 5 seconds.
+     *
+     * @return the accuracy within the last 5 seconds
+     */
+    public double getAccuracy5s() {
+      return accuracy5s;
+    }
+
+    /**
+     * Returns the accuracy within the last 15 seconds.
+     *
+     * @return the accuracy within the last 15 seconds
+     */
+    public double getAccuracy15s() {
+      return accuracy15s;
+    }
+
+    /**
+     * Returns the words per minute within the last 5 seconds.
+     *
+     * @return the words per minute within the last 5 seconds
+     */
+    public double getWpm5s() {
+      return wpm5s;
+    }
+
+    /**
+     * Returns the words per minute within the last 15 seconds.
+     *
+     * @return the words per minute within the last 15 seconds
+     */
+    public double getWpm15s() {
+      return wpm15s;
+    }
+  }
+}
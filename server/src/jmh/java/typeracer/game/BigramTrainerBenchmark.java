@@ -0,0 +1,86 @@
+package typeracer.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how training a bigram model scales with the size of the corpus and the number of
+ * threads. The corpus consists of copies of the default corpus, about 140 KB each. Run with:
+ *
+ * <pre>
+ * ./gradlew :server:jmh -Pjmh.includes=BigramTrainerBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BigramTrainerBenchmark {
+
+  private static final String CORPUS_FILE = "corpus_sources/alice_in_wonderland.txt";
+
+  /** The number of copies of the default corpus to train on. */
+  @Param({"1", "8", "32"})
+  public int copies;
+
+  /** The number of threads to train with. */
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  private String corpus;
+  private ForkJoinPool pool;
+
+  /** The default constructor of this class. */
+  public BigramTrainerBenchmark() {}
+
+  /**
+   * Reads the corpus and creates the pool to train on.
+   *
+   * @throws IOException if the corpus could not be read
+   * @throws URISyntaxException if the corpus could not be located
+   */
+  @Setup(Level.Trial)
+  public void readCorpus() throws IOException, URISyntaxException {
+    URL corpusUrl = Thread.currentThread().getContextClassLoader().getResource(CORPUS_FILE);
+    TextSource textSource = new TextSource();
+    textSource.setTextFromFile(new File(corpusUrl.toURI()));
+    corpus = (textSource.getCurrentText() + "\n").repeat(copies);
+    pool = new ForkJoinPool(parallelism);
+  }
+
+  /** Shuts the pool down. */
+  @TearDown(Level.Trial)
+  public void shutDownPool() {
+    pool.shutdown();
+  }
+
+  /**
+   * Counts the bigrams of the corpus.
+   *
+   * @return the bigram counts
+   */
+  @Benchmark
+  public HashMap<String, HashMap<String, Integer>> train() {
+    return BigramTrainer.train(corpus, pool, BigramTrainer.DEFAULT_CHUNK_LENGTH);
+  }
+}
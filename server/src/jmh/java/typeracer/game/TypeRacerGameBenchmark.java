@@ -0,0 +1,106 @@
+package typeracer.game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typeracer.server.session.Session;
+import typeracer.server.utils.TypingResult;
+
+/**
+ * Measures a single keystroke of a running race, which must not allocate. Run with the GC profiler
+ * to see the allocations per keystroke:
+ *
+ * <pre>
+ * ./gradlew :server:jmh -Pjmh.includes=TypeRacerGameBenchmark -Pjmh.profilers=gc
+ * </pre>
+ *
+ * <p>The text is long enough that the typist only finishes once in about a million keystrokes,
+ * when a new typist takes over. This is the only allocation, so <code>gc.alloc.rate.norm</code> is
+ * reported as 0 B/op after rounding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeRacerGameBenchmark {
+
+  private static final String WORDS = "the quick brown fox jumps over the lazy dog ";
+  private static final int REPETITIONS = 25_000;
+  private static final int TYPIST_ID = 1;
+  private static final int OPPONENT_ID = 2;
+
+  private String text;
+  private TypeRacerGame game;
+  private Player typist;
+  private int position;
+
+  /** The default constructor of this class. */
+  public TypeRacerGameBenchmark() {}
+
+  /**
+   * Creates a long text and a game with a typist and an opponent.
+   *
+   * @throws IOException if the text could not be written to a temporary file
+   */
+  @Setup(Level.Trial)
+  public void createRace() throws IOException {
+    TextSource textSource = new TextSource();
+    Path file = Files.createTempFile("race", ".txt");
+    try {
+      Files.writeString(file, WORDS.repeat(REPETITIONS));
+      textSource.setTextFromFile(file.toFile());
+    } finally {
+      Files.delete(file);
+    }
+    text = textSource.getCurrentText();
+    // The opponent never types, so the game keeps running when the typist finishes
+    game = new TypeRacerGame(textSource, new Session());
+    game.addPlayer(OPPONENT_ID);
+    game.addPlayer(TYPIST_ID);
+    typist = game.getPlayer(TYPIST_ID);
+  }
+
+  private void replaceTypist() {
+    game.removePlayer(TYPIST_ID);
+    game.addPlayer(TYPIST_ID);
+    typist = game.getPlayer(TYPIST_ID);
+    position = 0;
+  }
+
+  /**
+   * Types the next character of the text.
+   *
+   * @return the result of typing
+   */
+  @Benchmark
+  public TypingResult typeCorrectCharacter() {
+    if (position == text.length()) {
+      replaceTypist();
+    }
+    return game.typeCharacter(typist, text.charAt(position++));
+  }
+
+  /**
+   * Types a character that never matches the text.
+   *
+   * @return the result of typing
+   */
+  @Benchmark
+  public TypingResult typeIncorrectCharacter() {
+    return game.typeCharacter(typist, '\n');
+  }
+}
@@ -0,0 +1,149 @@
+package typeracer.server.session;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import typeracer.game.TextSource;
+
+/**
+ * Measures how well the {@link SessionManager} copes with contention across 10,000 sessions, each
+ * with one resident player. Looking a session up by client id is compared to reading it from the
+ * client's context. In the contended group, most threads look up sessions while the others keep
+ * joining and leaving sessions.
+ *
+ * <p>Run with <code>./gradlew :server:jmh</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionManagerBenchmark {
+
+  private static final int NUMBER_OF_SESSIONS = 10_000;
+  private static final int FIRST_SESSION_ID = 1;
+  private static final int FIRST_RESIDENT_ID = 100_000;
+  private static final int FIRST_VISITOR_ID = 200_000;
+
+  private final SessionManager sessionManager = SessionManager.getInstance();
+  private final ClientContext[] residents = new ClientContext[NUMBER_OF_SESSIONS];
+
+  /** The default constructor of this class. */
+  public SessionManagerBenchmark() {}
+
+  /** Creates all sessions and lets one resident player join each of them. */
+  @Setup(Level.Trial)
+  public void createSessions() {
+    TextSource textSource = new TextSource();
+    for (int i = 0; i < NUMBER_OF_SESSIONS; i++) {
+      sessionManager.createNewSession(FIRST_SESSION_ID + i, textSource);
+      residents[i] = new ClientContext(FIRST_RESIDENT_ID + i);
+      sessionManager.joinSessionById(residents[i], FIRST_SESSION_ID + i);
+    }
+  }
+
+  /**
+   * Looks up the session of a resident player without any concurrent joins.
+   *
+   * @param cursor the sessions visited by the calling thread
+   * @return the session found
+   */
+  @Benchmark
+  public Session lookUpSession(Cursor cursor) {
+    return sessionManager.getSessionByClientId(FIRST_RESIDENT_ID + cursor.nextSession());
+  }
+
+  /**
+   * Reads the session of a resident player from its context, like every keystroke does.
+   *
+   * @param cursor the sessions visited by the calling thread
+   * @return the session found
+   */
+  @Benchmark
+  public Session getSessionFromContext(Cursor cursor) {
+    return residents[cursor.nextSession()].getSession();
+  }
+
+  /**
+   * Looks up the session of a resident player while other threads join and leave sessions.
+   *
+   * @param cursor the sessions visited by the calling thread
+   * @return the session found
+   */
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(6)
+  public Session lookUpSessionContended(Cursor cursor) {
+    return sessionManager.getSessionByClientId(FIRST_RESIDENT_ID + cursor.nextSession());
+  }
+
+  /**
+   * Lets a visitor join a session and leave it again while other threads look up sessions.
+   *
+   * @param cursor the sessions visited by the calling thread
+   * @return whether leaving succeeded
+   */
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(2)
+  public boolean joinAndLeaveContended(Cursor cursor) {
+    int sessionId = FIRST_SESSION_ID + cursor.nextOwnSession();
+    sessionManager.joinSessionById(cursor.visitor, sessionId);
+    return sessionManager.leaveSession(cursor.visitor, sessionId);
+  }
+
+  /**
+   * The sessions a benchmark thread visits. Joining and leaving bypasses the session loops, so
+   * every thread only joins its own stripe of sessions, which keeps their games single-threaded.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+
+    private int stripe;
+    private int stripes;
+    private ClientContext visitor;
+    private int next;
+
+    /** The default constructor of this class. */
+    public Cursor() {}
+
+    /**
+     * Assigns the calling thread its stripe of sessions.
+     *
+     * @param threadParams the parameters of the calling thread
+     */
+    @Setup(Level.Trial)
+    public void assignStripe(ThreadParams threadParams) {
+      stripe = threadParams.getSubgroupThreadIndex();
+      stripes = threadParams.getSubgroupThreadCount();
+      visitor = new ClientContext(FIRST_VISITOR_ID + threadParams.getThreadIndex());
+      next = stripe;
+    }
+
+    private int nextSession() {
+      next = next + 1 == NUMBER_OF_SESSIONS ? 0 : next + 1;
+      return next;
+    }
+
+    private int nextOwnSession() {
+      next += stripes;
+      if (next >= NUMBER_OF_SESSIONS) {
+        next = stripe;
+      }
+      return next;
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package typeracer.game;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts how often each word of a corpus follows each other word. The corpus is split into words
+ * and counted in a single pass, without building a list of its words first. Large corpora are split
+ * into chunks at whitespace, which are counted in parallel on a {@link ForkJoinPool} and merged
+ * afterward, so training takes time linear in the length of the corpus.
+ *
+ * <p>Words are split like {@link TextGenerator} always did: the corpus is converted to lowercase,
+ * punctuation and non-ASCII characters are removed, and the rest is split at whitespace and control
+ * characters.
+ */
+final class BigramTrainer {
+
+  /** The length of the chunks of a corpus below which they are not split any further. */
+  static final int DEFAULT_CHUNK_LENGTH = 1 << 18;
+
+  private BigramTrainer() {}
+
+  /**
+   * Counts the bigrams of the given corpus on the common fork-join pool.
+   *
+   * @param corpus the text to count the bigrams of
+   * @return for every word followed by another, how often each word follows it
+   */
+  static HashMap<String, HashMap<String, Integer>> train(String corpus) {
+    return train(corpus, ForkJoinPool.commonPool(), DEFAULT_CHUNK_LENGTH);
+  }
+
+  /**
+   * Counts the bigrams of the given corpus on the given pool. A pool with a single thread counts
+   * the whole corpus at once, since merging chunks would only add work.
+   *
+   * @param corpus the text to count the bigrams of
+   * @param pool the pool to count the chunks of the corpus on
+   * @param chunkLength the length of the chunks below which they are counted by a single thread
+   * @return for every word followed by another, how often each word follows it
+   */
+  static HashMap<String, HashMap<String, Integer>> train(
+      String corpus, ForkJoinPool pool, int chunkLength) {
+    if (chunkLength <= 0) {
+      throw new IllegalArgumentException("The chunk length must be positive");
+    }
+    int length = pool.getParallelism() > 1 ? chunkLength : Integer.MAX_VALUE;
+    return pool.invoke(new ChunkTask(corpus, 0, corpus.length(), length)).counts;
+  }
+
+  private static boolean isSeparator(char character) {
+    return character <= ' ' || character == 0x7F; // ASCII whitespace and control characters
+  }
+
+  /** Returns the character as part of a word, or 0 if it is left out of words. */
+  private static char toWordCharacter(char character) {
+    char lowerCase = Character.toLowerCase(character);
+    if (lowerCase > 0x7F || isPunctuation(lowerCase)) {
+      return 0;
+    }
+    return lowerCase;
+  }
+
+  private static boolean isPunctuation(char character) {
+    return ('!' <= character && character <= '/')
+        || (':' <= character && character <= '@')
+        || ('[' <= character && character <= '`')
+        || ('{' <= character && character <= '~');
+  }
+
+  /** The bigram counts of a chunk of the corpus and the words at its edges. */
+  private static final class ChunkCounts {
+    private HashMap<String, HashMap<String, Integer>> counts = new HashMap<>();
+    private String firstWord;
+    private String lastWord;
+
+    private void add(String word) {
+      if (lastWord != null) {
+        count(lastWord, word, 1);
+      } else {
+        firstWord = word;
+      }
+      lastWord = word;
+    }
+
+    private void count(String word, String followingWord, int count) {
+      counts.computeIfAbsent(word, k -> new HashMap<>()).merge(followingWord, count, Integer::sum);
+    }
+
+    /** Adds the counts of the chunk directly following this one to this chunk's counts. */
+    private ChunkCounts merge(ChunkCounts next) {
+      HashMap<String, HashMap<String, Integer>> smaller = next.counts;
+      if (smaller.size() > counts.size()) {
+        // Counts add up in any order, so the smaller counts are added to the larger ones
+        smaller = counts;
+        counts = next.counts;
+      }
+      for (Map.Entry<String, HashMap<String, Integer>> entry : smaller.entrySet()) {
+        HashMap<String, Integer> followingCounts = counts.get(entry.getKey());
+        if (followingCounts == null) {
+          counts.put(entry.getKey(), entry.getValue());
+        } else {
+          entry
+              .getValue()
+              .forEach((word, count) -> followingCounts.merge(word, count, Integer::sum));
+        }
+      }
+      if (next.firstWord != null) {
+        if (lastWord != null) {
+          count(lastWord, next.firstWord, 1); // The bigram spanning both chunks
+        } else {
+          firstWord = next.firstWord;
+        }
+        lastWord = next.lastWord;
+      }
+      return this;
+    }
+  }
+
+  /** Counts the bigrams of the characters of a corpus between two separators. */
+  private static final class ChunkTask extends RecursiveTask<ChunkCounts> {
+    private static final long serialVersionUID = 1L;
+
+    private final String corpus;
+    private final int from;
+    private final int to;
+    private final int chunkLength;
+
+    private ChunkTask(String corpus, int from, int to, int chunkLength) {
+      this.corpus = corpus;
+      this.from = from;
+      this.to = to;
+      this.chunkLength = chunkLength;
+    }
+
+    @Override
+    protected ChunkCounts compute() {
+      if (to - from > chunkLength) {
+        // Split at a separator, so no word is cut in two
+        int split = from + (to - from) / 2;
+        while (split < to && !isSeparator(corpus.charAt(split))) {
+          split++;
+        }
+        if (split < to) {
+          ChunkTask first = new ChunkTask(corpus, from, split, chunkLength);
+          first.fork();
+          ChunkCounts second = new ChunkTask(corpus, split, to, chunkLength).compute();
+          return first.join().merge(second);
+        }
+      }
+      return count();
+    }
+
+    private ChunkCounts count() {
+      ChunkCounts chunkCounts = new ChunkCounts();
+      StringBuilder word = new StringBuilder();
+      for (int i = from; i < to; i++) {
+        char character = corpus.charAt(i);
+        if (isSeparator(character)) {
+          if (!word.isEmpty()) {
+            chunkCounts.add(word.toString());
+            word.setLength(0);
+          }
+        } else {
+          char wordCharacter = toWordCharacter(character);
+          if (wordCharacter != 0) {
+            word.append(wordCharacter);
+          }
+        }
+      }
+      if (!word.isEmpty()) {
+        chunkCounts.add(word.toString());
+      }
+      return chunkCounts;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package typeracer.game;
+
+/**
+ * Settings controlling how often and how much player state is broadcast during a game. They are
+ * read whenever a game is created, so changes only affect games created afterward.
+ */
+public final class BroadcastSettings {
+
+  private static final BroadcastSettings INSTANCE = new BroadcastSettings();
+  private static final double DEFAULT_STATE_EPSILON = 0.001;
+  private static final int DEFAULT_KEYFRAME_INTERVAL = 25;
+
+  private volatile double stateEpsilon = DEFAULT_STATE_EPSILON;
+  private volatile int keyframeInterval = DEFAULT_KEYFRAME_INTERVAL;
+  private volatile boolean rollingStatsEnabled = false;
+
+  private BroadcastSettings() {}
+
+  /**
+   * Returns the singleton instance of BroadcastSettings.
+   *
+   * @return the singleton instance of BroadcastSettings
+   */
+  public static BroadcastSettings getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the smallest change of a player's state that is broadcast.
+   *
+   * @return the state epsilon
+   * @see #setStateEpsilon(double)
+   */
+  public double getStateEpsilon() {
+    return stateEpsilon;
+  }
+
+  /**
+   * Sets the smallest change of a player's state that is broadcast. Progress and accuracy are
+   * compared absolutely, words per minute relative to the value sent last, so an epsilon of 0.001
+   * means a tenth of a percent for all of them.
+   *
+   * @param stateEpsilon the state epsilon, must not be negative
+   */
+  public void setStateEpsilon(double stateEpsilon) {
+    if (!(stateEpsilon >= 0)) {
+      throw new IllegalArgumentException("The state epsilon must not be negative");
+    }
+    this.stateEpsilon = stateEpsilon;
+  }
+
+  /**
+   * Returns the number of ticks after which the state of every player is broadcast again.
+   *
+   * @return the keyframe interval in ticks
+   */
+  public int getKeyframeInterval() {
+    return keyframeInterval;
+  }
+
+  /**
+   * Sets the number of ticks after which the state of every player is broadcast again, whether it
+   * changed or not. This lets clients resynchronize.
+   *
+   * @param keyframeInterval the keyframe interval in ticks, must be positive
+   */
+  public void setKeyframeInterval(int keyframeInterval) {
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException("The keyframe interval must be positive");
+    }
+    this.keyframeInterval = keyframeInterval;
+  }
+
+  /**
+   * Returns whether player states carry the typing speed and accuracy of the last seconds.
+   *
+   * @return <code>true</code> if rolling statistics are broadcast, <code>false</code> otherwise
+   */
+  public boolean isRollingStatsEnabled() {
+    return rollingStatsEnabled;
+  }
+
+  /**
+   * Sets whether player states carry the typing speed and accuracy of the last 5 and 15 seconds.
+   * They are left out by default, since they make every player state larger.
+   *
+   * @param rollingStatsEnabled whether rolling statistics are broadcast
+   */
+  public void setRollingStatsEnabled(boolean rollingStatsEnabled) {
+    this.rollingStatsEnabled = rollingStatsEnabled;
+  }
+}
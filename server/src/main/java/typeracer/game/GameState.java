@@ -1,10 +1,10 @@
 package typeracer.game;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import typeracer.communication.statuscodes.GameStatus;
+import typeracer.server.utils.IntObjectMap;
 
 /**
  * The class stores the current state of the {@link TypeRacerGame} game, including the game status,
@@ -14,9 +14,11 @@ public class GameState {
 
   private GameStatus gameStatus = GameStatus.WAITING_FOR_PLAYERS;
 
-  private final String textToType;
+  private final RaceText textToType;
 
-  private Map<Integer, Player> players = new HashMap<>(); // Map of IDs to Players
+  private final IntObjectMap<Player> players = new IntObjectMap<>(); // Map of IDs to Players
+
+  private int numberOfFinishedPlayers;
 
   /**
    * A constructor which creates a new default GameState.
@@ -26,7 +28,7 @@ public class GameState {
    * @param textSource from which the text of the game should come from
    */
   GameState(TextSource textSource) {
-    this.textToType = textSource.getCurrentText();
+    this.textToType = new RaceText(textSource.getCurrentText());
   }
 
   /**
@@ -35,7 +37,7 @@ public class GameState {
    * @param id of the player
    * @param player that is added to the game
    */
-  synchronized void addPlayer(int id, Player player) {
+  void addPlayer(int id, Player player) {
     players.put(id, player);
   }
 
@@ -44,8 +46,26 @@ public class GameState {
    *
    * @param id of the Player that is removed from the game
    */
-  synchronized void removePlayer(int id) {
-    players.remove(id);
+  void removePlayer(int id) {
+    Player player = players.remove(id);
+    if (player != null && player.isFinished()) {
+      numberOfFinishedPlayers--;
+    }
+  }
+
+  /** Counts a player of the game as finished. Must be called once for every finished player. */
+  void playerFinished() {
+    numberOfFinishedPlayers++;
+    assert numberOfFinishedPlayers <= players.size();
+  }
+
+  /**
+   * Returns whether every player of the game has finished, without looking at the players.
+   *
+   * @return true if every player has finished or there are no players, false otherwise
+   */
+  boolean isEveryoneFinished() {
+    return numberOfFinishedPlayers == players.size();
   }
 
   /**
@@ -54,7 +74,7 @@ public class GameState {
    * @return List of players
    */
   List<Player> getPlayers() {
-    return List.copyOf(players.values());
+    return players.values();
   }
 
   /**
@@ -63,6 +83,15 @@ public class GameState {
    * @return the text to type
    */
   String getTextToType() {
+    return textToType.toString();
+  }
+
+  /**
+   * Returns the text which is to be typed, together with the index of its words.
+   *
+   * @return the text to type
+   */
+  RaceText getRaceText() {
     return textToType;
   }
 
@@ -93,7 +122,21 @@ public class GameState {
    * @return a Set of all Player's IDs
    */
   Set<Integer> getIds() {
-    return Set.copyOf(players.keySet());
+    Set<Integer> ids = new HashSet<>();
+    for (int id : players.keys()) {
+      ids.add(id);
+    }
+    return ids;
+  }
+
+  /**
+   * Returns whether the player identified by the given ID is part of the game.
+   *
+   * @param id of the player
+   * @return true if the player is part of the game, false otherwise
+   */
+  boolean containsPlayer(int id) {
+    return players.containsKey(id);
   }
 
   /**
@@ -102,10 +145,21 @@ public class GameState {
    * @param id of the player
    * @return the player belonging to the given ID
    */
-  synchronized Player getPlayerById(int id) {
-    if (!players.containsKey(id)) {
+  Player getPlayerById(int id) {
+    Player player = players.get(id);
+    if (player == null) {
       throw new NullPointerException("Player with ID " + id + " not contained in list of players.");
     }
+    return player;
+  }
+
+  /**
+   * Returns the player identified by the given ID, if it is part of the game.
+   *
+   * @param id of the player
+   * @return the player belonging to the given ID, or null if there is none
+   */
+  Player findPlayerById(int id) {
     return players.get(id);
   }
 }
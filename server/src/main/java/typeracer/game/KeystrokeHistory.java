@@ -0,0 +1,96 @@
+package typeracer.game;
+
+/**
+ * The most recent keystrokes of a player in a ring buffer of fixed size, so it takes the same
+ * memory however long a race is. For every {@link RollingWindow}, it remembers the oldest keystroke
+ * still inside the window and how many of the keystrokes since were correct. A keystroke leaves a
+ * window only once, so recording and querying take amortized constant time and never allocate.
+ *
+ * <p>Like {@link PlayerState}, this is only accessed by the session loop of the player's game. The
+ * times passed to it must not decrease.
+ */
+final class KeystrokeHistory {
+
+  /**
+   * The number of keystrokes kept. Typing faster than 34 keystrokes per second, about 400 words per
+   * minute, fills the buffer before the longest window has passed, and the window then only counts
+   * the last keystrokes that fit.
+   */
+  static final int CAPACITY = 512;
+
+  private static final int MASK = CAPACITY - 1;
+  private static final RollingWindow[] WINDOWS = RollingWindow.values();
+
+  private final long[] times = new long[CAPACITY];
+  private final boolean[] corrects = new boolean[CAPACITY];
+  // Keystrokes are numbered from 0, and a keystroke's slot is its number modulo the capacity
+  private final int[] windowStarts = new int[WINDOWS.length];
+  private final int[] correctInWindows = new int[WINDOWS.length];
+  private int numKeystrokes = 0;
+
+  /** The default constructor of this class. */
+  KeystrokeHistory() {}
+
+  /**
+   * Records a keystroke.
+   *
+   * @param time the time of the keystroke like returned by System.nanoTime()
+   * @param correct whether the typed character was correct
+   */
+  void record(long time, boolean correct) {
+    for (int window = 0; window < WINDOWS.length; window++) {
+      if (numKeystrokes - windowStarts[window] == CAPACITY) {
+        dropOldest(window); // Its slot is overwritten next
+      }
+    }
+    int slot = numKeystrokes & MASK;
+    times[slot] = time;
+    corrects[slot] = correct;
+    numKeystrokes++;
+    for (int window = 0; window < WINDOWS.length; window++) {
+      if (correct) {
+        correctInWindows[window]++;
+      }
+      expire(window, time);
+    }
+  }
+
+  /**
+   * Returns the number of keystrokes within the given window before the given time.
+   *
+   * @param window the window to count the keystrokes in
+   * @param now the end of the window like returned by System.nanoTime()
+   * @return the number of keystrokes in the window
+   */
+  int getKeystrokes(RollingWindow window, long now) {
+    expire(window.ordinal(), now);
+    return numKeystrokes - windowStarts[window.ordinal()];
+  }
+
+  /**
+   * Returns the number of correct keystrokes within the given window before the given time.
+   *
+   * @param window the window to count the keystrokes in
+   * @param now the end of the window like returned by System.nanoTime()
+   * @return the number of correct keystrokes in the window
+   */
+  int getCorrectKeystrokes(RollingWindow window, long now) {
+    expire(window.ordinal(), now);
+    return correctInWindows[window.ordinal()];
+  }
+
+  private void expire(int window, long now) {
+    long length = WINDOWS[window].getLengthNanos();
+    while (windowStarts[window] != numKeystrokes
+        && now - times[windowStarts[window] & MASK] >= length) {
+      dropOldest(window);
+    }
+  }
+
+  private void dropOldest(int window) {
+    if (corrects[windowStarts[window] & MASK]) {
+      correctInWindows[window]--;
+    }
+    windowStarts[window]++;
+  }
+}
@@ -0,0 +1,437 @@
+package typeracer.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An immutable bigram model, i.e. how often each word of a corpus follows each other word, stored
+ * in a compact binary format outside the Java heap. Models are either built from bigram counts or
+ * loaded from a model file, which is mapped into memory instead of being read, so loading takes
+ * milliseconds and no objects are created per word. A model may be used by any number of threads.
+ *
+ * <p>Every word is stored once and identified by its index in the alphabetically sorted
+ * vocabulary. The words following each word are stored in compressed sparse rows: the successors
+ * of word <code>w</code> are those between <code>rowStarts[w]</code> and <code>rowStarts[w + 1]
+ * </code>, each given by its word id and the count of all successors of <code>w</code> up to and
+ * including it.
+ *
+ * <p>Words are drawn with Vose's alias method in constant time, whatever the number of successors.
+ * Every distribution is stored as a table with one column per word, each column holding a word, a
+ * threshold and an alias. A draw picks a column uniformly and a number below the total count of
+ * the distribution, and returns the column's word if the number is below the threshold, else its
+ * alias. The thresholds are integers, so the drawn words follow the counts exactly.
+ *
+ * <p>A model file consists of little-endian ints, followed by the ASCII bytes of all words:
+ *
+ * <pre>
+ * magic, version, numberOfWords, numberOfTransitions, numberOfVocabularyBytes
+ * wordOffsets[numberOfWords + 1]       where each word starts in the vocabulary bytes
+ * startingCounts[numberOfWords]        cumulative counts of words followed by another word
+ * startingThresholds[numberOfWords]    the alias table of the starting words
+ * startingAliases[numberOfWords]
+ * rowStarts[numberOfWords + 1]
+ * nextWordIds[numberOfTransitions]
+ * cumulativeCounts[numberOfTransitions]
+ * thresholds[numberOfTransitions]      the alias tables of the successors of each word
+ * aliases[numberOfTransitions]
+ * vocabulary[numberOfVocabularyBytes]
+ * </pre>
+ */
+final class MarkovModel {
+
+  /** The bytes "DTMM" read as a little-endian int. */
+  private static final int MAGIC = 0x4D4D5444;
+
+  private static final int VERSION = 2;
+  private static final int HEADER_INTS = 5;
+
+  private final ByteBuffer buffer;
+  private final int numberOfWords;
+  private final int wordOffsetsStart;
+  private final int startingCountsStart;
+  private final int startingThresholdsStart;
+  private final int startingAliasesStart;
+  private final int rowStartsStart;
+  private final int nextWordIdsStart;
+  private final int cumulativeCountsStart;
+  private final int thresholdsStart;
+  private final int aliasesStart;
+  private final int vocabularyStart;
+
+  private MarkovModel(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a model file");
+    }
+    if (buffer.getInt(Integer.BYTES) != VERSION) {
+      throw new IOException("Unsupported model version " + buffer.getInt(Integer.BYTES));
+    }
+    numberOfWords = buffer.getInt(2 * Integer.BYTES);
+    int numberOfTransitions = buffer.getInt(3 * Integer.BYTES);
+    int numberOfVocabularyBytes = buffer.getInt(4 * Integer.BYTES);
+    if (numberOfWords < 0
+        || numberOfTransitions < 0
+        || numberOfVocabularyBytes < 0
+        || getSize(numberOfWords, numberOfTransitions, numberOfVocabularyBytes)
+            != buffer.capacity()) {
+      throw new IOException("Model file has the wrong size");
+    }
+    wordOffsetsStart = HEADER_INTS * Integer.BYTES;
+    startingCountsStart = wordOffsetsStart + (numberOfWords + 1) * Integer.BYTES;
+    startingThresholdsStart = startingCountsStart + numberOfWords * Integer.BYTES;
+    startingAliasesStart = startingThresholdsStart + numberOfWords * Integer.BYTES;
+    rowStartsStart = startingAliasesStart + numberOfWords * Integer.BYTES;
+    nextWordIdsStart = rowStartsStart + (numberOfWords + 1) * Integer.BYTES;
+    cumulativeCountsStart = nextWordIdsStart + numberOfTransitions * Integer.BYTES;
+    thresholdsStart = cumulativeCountsStart + numberOfTransitions * Integer.BYTES;
+    aliasesStart = thresholdsStart + numberOfTransitions * Integer.BYTES;
+    vocabularyStart = aliasesStart + numberOfTransitions * Integer.BYTES;
+    validate(numberOfTransitions, numberOfVocabularyBytes);
+  }
+
+  private static long getSize(
+      int numberOfWords, int numberOfTransitions, int numberOfVocabularyBytes) {
+    long numberOfInts = HEADER_INTS + 5L * numberOfWords + 2 + 4L * numberOfTransitions;
+    return numberOfInts * Integer.BYTES + numberOfVocabularyBytes;
+  }
+
+  /**
+   * Checks that every offset, id and count lies within bounds, so that a damaged file cannot
+   * produce invalid indices later. Takes time linear in the size of the model.
+   */
+  private void validate(int numberOfTransitions, int numberOfVocabularyBytes) throws IOException {
+    if (getInt(wordOffsetsStart, 0) != 0
+        || getInt(wordOffsetsStart, numberOfWords) != numberOfVocabularyBytes
+        || getInt(rowStartsStart, 0) != 0
+        || getInt(rowStartsStart, numberOfWords) != numberOfTransitions) {
+      throw new IOException("Model file is damaged");
+    }
+    int previousStartingCount = 0;
+    for (int word = 0; word < numberOfWords; word++) {
+      int startingCount = getInt(startingCountsStart, word);
+      int rowStart = getInt(rowStartsStart, word);
+      int rowEnd = getInt(rowStartsStart, word + 1);
+      if (getInt(wordOffsetsStart, word + 1) <= getInt(wordOffsetsStart, word)
+          || startingCount < previousStartingCount
+          || rowEnd < rowStart
+          || !isValidColumn(startingThresholdsStart, startingAliasesStart, word)) {
+        throw new IOException("Model file is damaged");
+      }
+      previousStartingCount = startingCount;
+      int previousCount = 0;
+      for (int transition = rowStart; transition < rowEnd; transition++) {
+        int nextWord = getInt(nextWordIdsStart, transition);
+        int count = getInt(cumulativeCountsStart, transition);
+        if (nextWord < 0
+            || nextWord >= numberOfWords
+            || count <= previousCount
+            || !isValidColumn(thresholdsStart, aliasesStart, transition)) {
+          throw new IOException("Model file is damaged");
+        }
+        previousCount = count;
+      }
+    }
+  }
+
+  /** Returns whether the column of an alias table has a threshold and refers to an actual word. */
+  private boolean isValidColumn(int thresholdsStart, int aliasesStart, int column) {
+    int alias = getInt(aliasesStart, column);
+    return getInt(thresholdsStart, column) >= 0 && alias >= 0 && alias < numberOfWords;
+  }
+
+  /**
+   * Builds a model from the given bigram counts, e.g. those of a {@link BigramTrainer}. Words are
+   * expected to consist of ASCII characters only.
+   *
+   * @param counts for every word followed by another, how often each word follows it
+   * @return the model of the counts
+   */
+  static MarkovModel fromCounts(Map<String, ? extends Map<String, Integer>> counts) {
+    Set<String> words = new TreeSet<>(counts.keySet());
+    counts.values().forEach(followingCounts -> words.addAll(followingCounts.keySet()));
+    List<String> vocabulary = List.copyOf(words); // Only the last word may have no successor
+    Map<String, Integer> idByWord = new HashMap<>();
+    for (String word : vocabulary) {
+      idByWord.put(word, idByWord.size());
+    }
+    int numberOfWords = vocabulary.size();
+    int numberOfTransitions = counts.values().stream().mapToInt(Map::size).sum();
+
+    int[] wordOffsets = new int[numberOfWords + 1];
+    int[] startingCounts = new int[numberOfWords];
+    int[] rowStarts = new int[numberOfWords + 1];
+    int[] nextWordIds = new int[numberOfTransitions];
+    int[] cumulativeCounts = new int[numberOfTransitions];
+    int startingCount = 0;
+    int transition = 0;
+    for (int word = 0; word < numberOfWords; word++) {
+      String wordString = vocabulary.get(word);
+      wordOffsets[word + 1] = wordOffsets[word] + wordString.length();
+      rowStarts[word] = transition;
+      Map<String, Integer> followingCounts = counts.get(wordString);
+      if (followingCounts == null) {
+        followingCounts = Map.of();
+      }
+      int[] row = followingCounts.keySet().stream().mapToInt(idByWord::get).sorted().toArray();
+      int cumulativeCount = 0;
+      for (int nextWord : row) {
+        cumulativeCount += followingCounts.get(vocabulary.get(nextWord));
+        nextWordIds[transition] = nextWord;
+        cumulativeCounts[transition] = cumulativeCount;
+        transition++;
+      }
+      // A word starts a text as often as it is followed by another word
+      startingCount += cumulativeCount;
+      startingCounts[word] = startingCount;
+    }
+    rowStarts[numberOfWords] = transition;
+
+    int[] startingThresholds = new int[numberOfWords];
+    int[] startingAliases = new int[numberOfWords];
+    int[] startingWeights = new int[numberOfWords];
+    int[] wordIds = new int[numberOfWords];
+    for (int word = 0; word < numberOfWords; word++) {
+      startingWeights[word] = startingCounts[word] - (word > 0 ? startingCounts[word - 1] : 0);
+      wordIds[word] = word;
+    }
+    buildAliasTable(
+        startingWeights, wordIds, 0, numberOfWords, startingThresholds, startingAliases);
+    int[] weights = new int[numberOfTransitions];
+    int[] thresholds = new int[numberOfTransitions];
+    int[] aliases = new int[numberOfTransitions];
+    for (int word = 0; word < numberOfWords; word++) {
+      for (int column = rowStarts[word]; column < rowStarts[word + 1]; column++) {
+        int previous = column > rowStarts[word] ? cumulativeCounts[column - 1] : 0;
+        weights[column] = cumulativeCounts[column] - previous;
+      }
+      buildAliasTable(
+          weights, nextWordIds, rowStarts[word], rowStarts[word + 1], thresholds, aliases);
+    }
+
+    int numberOfVocabularyBytes = wordOffsets[numberOfWords];
+    ByteBuffer buffer =
+        ByteBuffer.allocateDirect(
+                (int) getSize(numberOfWords, numberOfTransitions, numberOfVocabularyBytes))
+            .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(numberOfWords).putInt(numberOfTransitions);
+    buffer.putInt(numberOfVocabularyBytes);
+    List<int[]> arrays =
+        List.of(
+            wordOffsets,
+            startingCounts,
+            startingThresholds,
+            startingAliases,
+            rowStarts,
+            nextWordIds,
+            cumulativeCounts,
+            thresholds,
+            aliases);
+    for (int[] array : arrays) {
+      buffer.asIntBuffer().put(array);
+      buffer.position(buffer.position() + array.length * Integer.BYTES);
+    }
+    for (String word : vocabulary) {
+      buffer.put(word.getBytes(StandardCharsets.US_ASCII));
+    }
+    try {
+      return new MarkovModel(buffer.clear());
+    } catch (IOException e) {
+      throw new IllegalStateException("Built an invalid model", e);
+    }
+  }
+
+  /**
+   * Fills in the alias table of a distribution with Vose's method. Every column starts out with its
+   * own word and its weight times the number of columns. Columns below the total weight are filled
+   * up with the excess of a column above it, whose word becomes their alias, until all columns hold
+   * exactly the total weight. Integers keep this exact, since the weights times the number of
+   * columns add up to the total weight times the number of columns.
+   *
+   * @param weights the weight of every column
+   * @param words the word of every column
+   * @param from the first column of the table
+   * @param to the column after the last one of the table
+   * @param thresholds receives the part of every column that draws its own word
+   * @param aliases receives the word every column draws above its threshold
+   */
+  private static void buildAliasTable(
+      int[] weights, int[] words, int from, int to, int[] thresholds, int[] aliases) {
+    int numberOfColumns = to - from;
+    long total = 0;
+    long[] scaledWeights = new long[numberOfColumns];
+    for (int column = 0; column < numberOfColumns; column++) {
+      total += weights[from + column];
+      scaledWeights[column] = (long) weights[from + column] * numberOfColumns;
+    }
+    int[] small = new int[numberOfColumns];
+    int[] large = new int[numberOfColumns];
+    int numberOfSmall = 0;
+    int numberOfLarge = 0;
+    for (int column = 0; column < numberOfColumns; column++) {
+      if (scaledWeights[column] < total) {
+        small[numberOfSmall++] = column;
+      } else {
+        large[numberOfLarge++] = column;
+      }
+    }
+    while (numberOfSmall > 0 && numberOfLarge > 0) {
+      int smallColumn = small[--numberOfSmall];
+      int largeColumn = large[--numberOfLarge];
+      thresholds[from + smallColumn] = (int) scaledWeights[smallColumn];
+      aliases[from + smallColumn] = words[from + largeColumn];
+      scaledWeights[largeColumn] -= total - scaledWeights[smallColumn];
+      if (scaledWeights[largeColumn] < total) {
+        small[numberOfSmall++] = largeColumn;
+      } else {
+        large[numberOfLarge++] = largeColumn;
+      }
+    }
+    // The remaining columns hold exactly the total weight
+    while (numberOfLarge > 0) {
+      int column = large[--numberOfLarge];
+      thresholds[from + column] = (int) total;
+      aliases[from + column] = words[from + column];
+    }
+  }
+
+  /**
+   * Loads the model in the given file by mapping the file into memory.
+   *
+   * @param file the model file
+   * @return the model in the file
+   * @throws IOException if the file cannot be read or is not a valid model of this version
+   */
+  static MarkovModel load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed
+      return new MarkovModel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes this model to the given file. The model is written to a temporary file first, which
+   * then replaces the given file, so other threads or processes never load a partial model.
+   *
+   * @param file the file to write to
+   * @throws IOException if the file cannot be written
+   */
+  void write(Path file) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+        ByteBuffer contents = buffer.duplicate().clear();
+        while (contents.hasRemaining()) {
+          channel.write(contents);
+        }
+      }
+      Files.move(
+          temporaryFile,
+          file,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Returns the number of bytes this model takes, i.e. the size of its model file.
+   *
+   * @return the size of this model in bytes
+   */
+  int getSizeInBytes() {
+    return buffer.capacity();
+  }
+
+  /**
+   * Returns the number of distinct words in this model.
+   *
+   * @return the size of the vocabulary
+   */
+  int getNumberOfWords() {
+    return numberOfWords;
+  }
+
+  /**
+   * Returns the word with the given id.
+   *
+   * @param word the id of the word
+   * @return the word
+   */
+  String getWord(int word) {
+    StringBuilder builder = new StringBuilder();
+    appendWord(word, builder);
+    return builder.toString();
+  }
+
+  /**
+   * Appends the word with the given id to the given builder, without creating a string first.
+   *
+   * @param word the id of the word
+   * @param builder the builder to append to
+   */
+  void appendWord(int word, StringBuilder builder) {
+    int end = vocabularyStart + getInt(wordOffsetsStart, word + 1);
+    for (int i = vocabularyStart + getInt(wordOffsetsStart, word); i < end; i++) {
+      builder.append((char) buffer.get(i));
+    }
+  }
+
+  /**
+   * Draws a word to start a text with, each word with a probability proportional to how often it
+   * is followed by another word in the corpus.
+   *
+   * @param random the source of randomness
+   * @return the id of the word
+   * @throws IllegalStateException if the model contains no words
+   */
+  int sampleStartingWord(Random random) {
+    if (numberOfWords == 0) {
+      throw new IllegalStateException("The model contains no words");
+    }
+    int total = getInt(startingCountsStart, numberOfWords - 1);
+    int column = random.nextInt(numberOfWords);
+    return random.nextInt(total) < getInt(startingThresholdsStart, column)
+        ? column
+        : getInt(startingAliasesStart, column);
+  }
+
+  /**
+   * Draws a word to follow the given word, each with a probability proportional to how often it
+   * followed the given word in the corpus.
+   *
+   * @param word the id of the preceding word
+   * @param random the source of randomness
+   * @return the id of the following word, or -1 if the given word is never followed by another
+   */
+  int sampleNextWord(int word, Random random) {
+    int rowStart = getInt(rowStartsStart, word);
+    int rowEnd = getInt(rowStartsStart, word + 1);
+    if (rowStart == rowEnd) {
+      return -1;
+    }
+    int total = getInt(cumulativeCountsStart, rowEnd - 1);
+    int column = rowStart + random.nextInt(rowEnd - rowStart);
+    return random.nextInt(total) < getInt(thresholdsStart, column)
+        ? getInt(nextWordIdsStart, column)
+        : getInt(aliasesStart, column);
+  }
+
+  private int getInt(int arrayStart, int index) {
+    return buffer.getInt(arrayStart + index * Integer.BYTES);
+  }
+}
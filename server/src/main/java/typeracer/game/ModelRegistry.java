@@ -0,0 +1,177 @@
+package typeracer.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import typeracer.server.utils.ServerMetrics;
+
+/**
+ * Keeps the text generation model of every recently used corpus, so sessions share them instead of
+ * each reading the corpus and loading its model again. Models are immutable, so any number of
+ * sessions may generate texts from the same model at once.
+ *
+ * <p>Each model is loaded once, even if several sessions ask for it at the same time: the first
+ * one loads it, the others wait for it. Once the models together take more than a given number of
+ * bytes, the least recently used ones are dropped, and loaded again when a session needs them. A
+ * model that is dropped while a session is still generating a text stays valid for that session.
+ */
+public final class ModelRegistry {
+
+  private static final long DEFAULT_MAX_BYTES = 64L << 20;
+  private static final ModelRegistry INSTANCE = new ModelRegistry(Path.of(""), DEFAULT_MAX_BYTES);
+  private static final LongAdder HITS = ServerMetrics.getInstance().counter("models.hits");
+  private static final LongAdder LOADS = ServerMetrics.getInstance().counter("models.loads");
+  private static final LongAdder EVICTIONS =
+      ServerMetrics.getInstance().counter("models.evictions");
+
+  private final Path modelDirectory;
+  private final ReentrantLock lock = new ReentrantLock();
+  // In access order, so the least recently used model comes first
+  private final LinkedHashMap<String, CachedModel> models = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+  private volatile long maxBytes;
+
+  /**
+   * Creates a registry keeping the model files of all corpora in the given directory.
+   *
+   * @param modelDirectory the directory to load model files from and save them to
+   * @param maxBytes the number of bytes the models may take before some of them are dropped
+   */
+  ModelRegistry(Path modelDirectory, long maxBytes) {
+    this.modelDirectory = modelDirectory;
+    setMaxBytes(maxBytes);
+  }
+
+  /**
+   * Returns the singleton instance of ModelRegistry, which keeps model files in the working
+   * directory.
+   *
+   * @return the singleton instance of ModelRegistry
+   */
+  public static ModelRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Sets the number of bytes the models may take before the least recently used ones are dropped.
+   * The model used last is always kept, even if it is larger on its own.
+   *
+   * @param maxBytes the maximum size of all models in bytes, must be positive
+   */
+  public void setMaxBytes(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("The maximum size of the models must be positive");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the model of the given corpus. A model kept by this registry is returned right away.
+   * Otherwise, it is loaded from its model file, or trained on the corpus if there is no valid
+   * model file yet.
+   *
+   * @param corpus the corpus file
+   * @return the model of the corpus
+   * @throws IOException if the corpus has to be read but cannot be
+   */
+  MarkovModel getModel(File corpus) throws IOException {
+    String name = corpus.getName();
+    CachedModel cachedModel;
+    boolean loading = false;
+    lock.lock();
+    try {
+      cachedModel = models.get(name);
+      if (cachedModel == null) {
+        cachedModel = new CachedModel();
+        models.put(name, cachedModel);
+        loading = true;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (loading) {
+      LOADS.increment();
+      load(name, corpus, cachedModel);
+    } else {
+      HITS.increment();
+    }
+    try {
+      return cachedModel.model.join();
+    } catch (CompletionException e) {
+      throw new IOException("Could not load the model of " + name, e.getCause());
+    }
+  }
+
+  /** Loads a model outside the lock, so sessions using other models do not wait for it. */
+  private void load(String name, File corpus, CachedModel cachedModel) throws IOException {
+    MarkovModel model;
+    try {
+      Path modelFile = modelDirectory.resolve(name + ".model");
+      model = TextGenerator.loadModel(modelFile);
+      if (model == null) {
+        model = TextGenerator.trainAndSaveModel(TextSource.getTextFromFile(corpus), modelFile);
+      }
+    } catch (IOException | RuntimeException e) {
+      lock.lock();
+      try {
+        models.remove(name, cachedModel); // The next session tries again
+      } finally {
+        lock.unlock();
+      }
+      cachedModel.model.completeExceptionally(e);
+      throw e;
+    }
+    lock.lock();
+    try {
+      cachedModel.sizeInBytes = model.getSizeInBytes();
+      totalBytes += cachedModel.sizeInBytes;
+      evictLeastRecentlyUsed(cachedModel);
+      ServerMetrics.getInstance().setGauge("models.bytes", totalBytes);
+    } finally {
+      lock.unlock();
+    }
+    cachedModel.model.complete(model);
+  }
+
+  /** Drops the least recently used models until the models fit. Must hold the lock. */
+  private void evictLeastRecentlyUsed(CachedModel keptModel) {
+    Iterator<Map.Entry<String, CachedModel>> iterator = models.entrySet().iterator();
+    while (totalBytes > maxBytes && iterator.hasNext()) {
+      CachedModel cachedModel = iterator.next().getValue();
+      // Models still loading have no size yet and are evicted once they are loaded
+      if (cachedModel != keptModel && cachedModel.model.isDone()) {
+        iterator.remove();
+        totalBytes -= cachedModel.sizeInBytes;
+        EVICTIONS.increment();
+      }
+    }
+  }
+
+  /**
+   * Returns whether this registry currently keeps the model of the given corpus.
+   *
+   * @param corpus the corpus file
+   * @return true if the model of the corpus is kept or being loaded
+   */
+  boolean contains(File corpus) {
+    lock.lock();
+    try {
+      return models.containsKey(corpus.getName());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** A model that is loaded or being loaded, and the number of bytes it takes once loaded. */
+  private static final class CachedModel {
+    private final CompletableFuture<MarkovModel> model = new CompletableFuture<>();
+    private long sizeInBytes;
+  }
+}
@@ -6,9 +6,12 @@ import typeracer.server.utils.TypingResult;
 public class Player {
   private final int id;
   private final PlayerState state;
-  private static final long MINUTES_TO_NANO_SECONDS_FACTOR = 60_000_000_000L;
+  private final KeystrokeHistory keystrokes = new KeystrokeHistory();
+  private static final long NANO_SECONDS_PER_MINUTE = 60_000_000_000L;
+  private static final double CHARACTERS_PER_WORD = 5;
   private long gameStartTime;
-  private int typingAttempts = 0;
+  private long lastTypedTime;
+  private long finishTime;
 
   /**
    * Creates a new Player with the given username.
@@ -57,6 +60,17 @@ public class Player {
     return state.getWordsPerMinute();
   }
 
+  /**
+   * Returns this Player's accuracy, progress and words per minute as of the last keystroke or
+   * update of the typing speeds. Unlike the other getters, this may be called from any thread, and
+   * the values always belong together.
+   *
+   * @return a consistent snapshot of this Player's state
+   */
+  public PlayerSnapshot getSnapshot() {
+    return state.snapshot();
+  }
+
   /**
    * Returns true if this Player is ready, false otherwise.
    *
@@ -93,10 +107,30 @@ public class Player {
     state.setIsFinished(isFinished);
   }
 
+  /**
+   * Returns the number of characters of the text this Player has typed correctly, which is also
+   * the position of the next character to type.
+   *
+   * @return this Player's position in the text
+   */
+  int getTextIndex() {
+    return state.getCurrentTextIndex();
+  }
+
+  /**
+   * Returns when this Player last typed a character.
+   *
+   * @return the time of the last typed character like returned by System.nanoTime(), 0 if this
+   *     Player has not typed yet
+   */
+  long getLastTypedTime() {
+    return lastTypedTime;
+  }
+
   /**
    * Makes this player type the given character. Checks if the typed character appears in the given
-   * text at the position this Player is currently at, and calculates updated words per minute and
-   * progress if necessary.
+   * text at the position this Player is currently at, and updates the statistics of this Player.
+   * Takes constant time and does not allocate, however long the text is.
    *
    * @param typedCharacter the character this player has typed
    * @param textToType the text the player has to type
@@ -105,81 +139,161 @@ public class Player {
    * @return {@link TypingResult#CORRECT} if the character was correct, else {@link
    *     TypingResult#INCORRECT}
    */
-  synchronized TypingResult typeCharacter(
-      char typedCharacter, String textToType, long gameStartTime) {
+  TypingResult typeCharacter(char typedCharacter, RaceText textToType, long gameStartTime) {
+    return typeCharacter(typedCharacter, textToType, gameStartTime, System.nanoTime());
+  }
+
+  /**
+   * Makes this player type the given character at the given time, which may lie in the past, e.g.
+   * for a character the client sent in a batch.
+   *
+   * @param typedCharacter the character this player has typed
+   * @param textToType the text the player has to type
+   * @param gameStartTime the time the game started at, given as a long like returned by
+   *     System.nanoTime()
+   * @param now the time the character was typed like returned by System.nanoTime(), not before the
+   *     character typed last
+   * @return {@link TypingResult#CORRECT} if the character was correct, else {@link
+   *     TypingResult#INCORRECT}
+   */
+  TypingResult typeCharacter(
+      char typedCharacter, RaceText textToType, long gameStartTime, long now) {
     this.gameStartTime = gameStartTime;
-    typingAttempts++;
+    lastTypedTime = now;
+    state.incrementNumTypedCharacters();
     int currentTextIndex = state.getCurrentTextIndex();
-    char correctCharacter = textToType.charAt(currentTextIndex);
-
-    // Update typing speeds in every case, since it might change with a wrong character as well
-    updateAllTypingSpeeds();
 
     TypingResult typingResult = TypingResult.INCORRECT;
-    if (typedCharacter == correctCharacter) {
+    if (typedCharacter == textToType.charAt(currentTextIndex)) {
       state.incrementCurrentTextIndex();
       int newTextIndex = state.getCurrentTextIndex(); // Should be incremented by one
       assert newTextIndex == currentTextIndex + 1;
 
-      // Update progress only if typing was successful, to avoid unnecessary updates
-
-      if (Character.isSpaceChar(correctCharacter)) {
+      if (newTextIndex == textToType.getWordEnd(state.getNumTypedWords())) {
         state.incrementNumTypedWords();
       }
       typingResult = TypingResult.CORRECT;
+    } else {
+      state.incrementNumErrors();
     }
+
     double progress = (double) state.getCurrentTextIndex() / textToType.length();
     assert 0 <= progress && progress <= 1;
     state.setProgress(progress);
     if (progress >= 1) {
+      finishTime = now; // Typing speeds no longer change from now on
       setIsFinished(true);
     }
 
     double accuracy =
         (double) state.getCurrentTextIndex() // current text index = correctly typed characters
-            / typingAttempts;
+            / state.getNumTypedCharacters();
     state.setAccuracy(accuracy);
+    // Update typing speeds in every case, since it might change with a wrong character as well
+    keystrokes.record(now, typingResult == TypingResult.CORRECT);
+    updateWordsPerMinute(now);
+    state.publish();
     return typingResult;
   }
 
-  /** Updates the typing speeds (e.g. words per minute) of this player. */
-  public void updateAllTypingSpeeds() {
-    updateWordsPerMinute();
-    updateCharactersPerMinute();
+  /**
+   * Updates the words per minute of this player, which drop while the player pauses, and publishes
+   * them.
+   */
+  void updateWordsPerMinute() {
+    updateWordsPerMinute(System.nanoTime());
+    state.publish();
   }
 
-  private synchronized void updateWordsPerMinute() {
-    if (!isFinished()) {
-      double wordsPerMinute =
-          getGeneralTypingSpeed(state.getNumTypedWords(), MINUTES_TO_NANO_SECONDS_FACTOR);
-      state.setWordsPerMinute(wordsPerMinute);
-    }
+  private void updateWordsPerMinute(long now) {
+    state.setWordsPerMinute(getRate(state.getNumTypedWords(), now));
   }
 
-  private synchronized void updateCharactersPerMinute() {
-    if (!isFinished()) {
-      double charactersPerMinute =
-          getGeneralTypingSpeed(state.getCurrentTextIndex(), MINUTES_TO_NANO_SECONDS_FACTOR);
-      state.setCharactersPerMinute(charactersPerMinute);
-    }
+  /**
+   * Returns this Player's gross words per minute, which counts every keystroke, correct or not,
+   * with five characters per word.
+   *
+   * @return this Player's gross words per minute
+   */
+  public double getGrossWordsPerMinute() {
+    return getRate(state.getNumTypedCharacters(), System.nanoTime()) / CHARACTERS_PER_WORD;
+  }
+
+  /**
+   * Returns this Player's net words per minute, which only counts the correctly typed characters,
+   * with five characters per word. The difference to the gross words per minute is the time lost
+   * on errors.
+   *
+   * @return this Player's net words per minute
+   */
+  public double getNetWordsPerMinute() {
+    return getRate(state.getCurrentTextIndex(), System.nanoTime()) / CHARACTERS_PER_WORD;
+  }
+
+  /**
+   * Returns the number of errors this Player corrected by typing the right character afterward.
+   *
+   * @return the number of corrected errors
+   */
+  public int getCorrectedErrors() {
+    return state.getNumCorrectedErrors();
+  }
+
+  /**
+   * Returns the number of words this Player completed.
+   *
+   * @return the number of completed words
+   */
+  public int getWordsCompleted() {
+    return state.getNumTypedWords();
+  }
+
+  /**
+   * Returns this Player's net words per minute within the given window before now, or before this
+   * Player finished. Unlike the other typing speeds, it reacts to the player speeding up or slowing
+   * down during the race. Must only be called by the session loop of this Player's game.
+   *
+   * @param window the window to measure the typing speed in
+   * @return the net words per minute within the window, 0 if no time has passed
+   */
+  public double getRollingWordsPerMinute(RollingWindow window) {
+    long end = getEnd(System.nanoTime());
+    long elapsedTime = Math.min(window.getLengthNanos(), end - gameStartTime);
+    int correct = keystrokes.getCorrectKeystrokes(window, end);
+    return elapsedTime <= 0
+        ? 0
+        : (double) correct * NANO_SECONDS_PER_MINUTE / elapsedTime / CHARACTERS_PER_WORD;
+  }
+
+  /**
+   * Returns this Player's accuracy within the given window before now, or before this Player
+   * finished. Must only be called by the session loop of this Player's game.
+   *
+   * @param window the window to measure the accuracy in
+   * @return the share of correct keystrokes within the window, 1 if there were none
+   */
+  public double getRollingAccuracy(RollingWindow window) {
+    long end = getEnd(System.nanoTime());
+    int typed = keystrokes.getKeystrokes(window, end);
+    return typed == 0 ? 1 : (double) keystrokes.getCorrectKeystrokes(window, end) / typed;
+  }
+
+  private long getEnd(long now) {
+    return isFinished() ? finishTime : now;
   }
 
   /**
-   * Returns a general typing speed since start of the game, using the current progress measured by
-   * some metric and a time factor to determine the referred timeframe.
+   * Returns how often something happened per minute since the start of the game, up to the given
+   * time or the time this Player finished, whichever is earlier.
    *
-   * @param progressMetric the metric used to determine the progress, e.g. the number of typed words
-   *     or typed characters. Must be positive
-   * @param timeFactor the factor used to determine the referred timeframe, such that speed =
-   *     progressMetric * timeFactor / elapsedTime. The factor has to convert the desired time unit
-   *     to nanoseconds as returned by System.nanoTime() and must be positive
-   * @return the typing speed measured in the given metric
+   * @param count how often something happened, e.g. the number of completed words
+   * @param now the current time like returned by System.nanoTime()
+   * @return the count per minute, 0 if no time has passed
    */
-  private double getGeneralTypingSpeed(int progressMetric, long timeFactor) {
-    assert progressMetric >= 0;
-    assert timeFactor >= 0;
-    long elapsedTime = System.nanoTime() - gameStartTime;
+  private double getRate(int count, long now) {
+    assert count >= 0;
+    long elapsedTime = getEnd(now) - gameStartTime;
     assert elapsedTime >= 0;
-    return (double) (progressMetric * timeFactor) / elapsedTime;
+    return elapsedTime <= 0 ? 0 : (double) count * NANO_SECONDS_PER_MINUTE / elapsedTime;
   }
 }
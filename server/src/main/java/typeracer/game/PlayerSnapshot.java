@@ -0,0 +1,52 @@
+package typeracer.game;
+
+/**
+ * The accuracy, progress and words per minute of a player at one point in time. Snapshots are
+ * immutable, so they can be passed between threads freely.
+ */
+public final class PlayerSnapshot {
+
+  private final double accuracy;
+  private final double progress;
+  private final double wordsPerMinute;
+
+  /**
+   * Constructs a new PlayerSnapshot.
+   *
+   * @param accuracy the accuracy of the player
+   * @param progress the progress of the player, from 0.0 to 1.0
+   * @param wordsPerMinute the speed of the player in words per minute
+   */
+  PlayerSnapshot(double accuracy, double progress, double wordsPerMinute) {
+    this.accuracy = accuracy;
+    this.progress = progress;
+    this.wordsPerMinute = wordsPerMinute;
+  }
+
+  /**
+   * Returns the accuracy of the player.
+   *
+   * @return the accuracy of the player
+   */
+  public double getAccuracy() {
+    return accuracy;
+  }
+
+  /**
+   * Returns the progress of the player.
+   *
+   * @return the progress of the player, from 0.0 to 1.0
+   */
+  public double getProgress() {
+    return progress;
+  }
+
+  /**
+   * Returns the speed of the player in words per minute.
+   *
+   * @return the speed of the player in words per minute
+   */
+  public double getWordsPerMinute() {
+    return wordsPerMinute;
+  }
+}
@@ -1,19 +1,96 @@
 package typeracer.game;
 
-/** Manages the state of a single player. */
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Manages the state of a single player. The state is written by one thread only, the session loop
+ * of the player's game, and its getters and setters are meant for that thread.
+ *
+ * <p>Other threads read the accuracy, progress and words per minute through {@link #snapshot()}.
+ * The writer copies these values into a second set of fields guarded by a sequence lock whenever
+ * it {@link #publish() publishes} them: the sequence is odd while the copy is written, so a reader
+ * retries until it saw the same even sequence before and after reading. Publishing neither blocks
+ * nor allocates, so it can be done on every keystroke.
+ */
 public class PlayerState {
+  private static final VarHandle SEQUENCE;
+  private static final VarHandle PUBLISHED_ACCURACY;
+  private static final VarHandle PUBLISHED_PROGRESS;
+  private static final VarHandle PUBLISHED_WORDS_PER_MINUTE;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      SEQUENCE = lookup.findVarHandle(PlayerState.class, "sequence", int.class);
+      PUBLISHED_ACCURACY =
+          lookup.findVarHandle(PlayerState.class, "publishedAccuracy", double.class);
+      PUBLISHED_PROGRESS =
+          lookup.findVarHandle(PlayerState.class, "publishedProgress", double.class);
+      PUBLISHED_WORDS_PER_MINUTE =
+          lookup.findVarHandle(PlayerState.class, "publishedWordsPerMinute", double.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   private double accuracy = 1;
   private double progress = 0; // Ranging from 0.0 to 1.0 according to the protocol
   private double wordsPerMinute = 0;
-  private double charactersPerMinute = 0;
   private boolean isReady = false;
   private boolean isFinished = false;
   private int currentTextIndex = 0;
   private int numTypedWords = 0;
+  private int numTypedCharacters = 0;
+  private int numErrors = 0;
+  private int numCorrectedErrors = 0;
+
+  // Only accessed through the VarHandles above
+  private int sequence = 0;
+  private double publishedAccuracy = 1;
+  private double publishedProgress = 0;
+  private double publishedWordsPerMinute = 0;
 
   /** The default constructor of this class. */
   PlayerState() {}
 
+  /**
+   * Makes the current accuracy, progress and words per minute visible to {@link #snapshot()}. Must
+   * only be called by the thread writing this state.
+   */
+  void publish() {
+    int current = sequence; // Only this thread writes the sequence
+    SEQUENCE.setOpaque(this, current + 1);
+    VarHandle.storeStoreFence(); // The odd sequence becomes visible before any of the values
+    PUBLISHED_ACCURACY.setOpaque(this, accuracy);
+    PUBLISHED_PROGRESS.setOpaque(this, progress);
+    PUBLISHED_WORDS_PER_MINUTE.setOpaque(this, wordsPerMinute);
+    SEQUENCE.setRelease(this, current + 2);
+  }
+
+  /**
+   * Returns the accuracy, progress and words per minute last {@link #publish() published}. The
+   * values always belong to the same update. May be called from any thread and never blocks, but
+   * spins while an update is being published.
+   *
+   * @return a snapshot of the published values
+   */
+  PlayerSnapshot snapshot() {
+    while (true) {
+      int before = (int) SEQUENCE.getAcquire(this);
+      if ((before & 1) == 0) {
+        double currentAccuracy = (double) PUBLISHED_ACCURACY.getOpaque(this);
+        double currentProgress = (double) PUBLISHED_PROGRESS.getOpaque(this);
+        double currentWordsPerMinute = (double) PUBLISHED_WORDS_PER_MINUTE.getOpaque(this);
+        VarHandle.loadLoadFence(); // The values are read before the sequence is checked again
+        if ((int) SEQUENCE.getOpaque(this) == before) {
+          return new PlayerSnapshot(currentAccuracy, currentProgress, currentWordsPerMinute);
+        }
+      }
+      Thread.onSpinWait();
+    }
+  }
+
   /**
    * Returns the current progress.
    *
@@ -41,15 +118,6 @@ public class PlayerState {
     return wordsPerMinute;
   }
 
-  /**
-   * Returns the current speed in characters per minute.
-   *
-   * @return the current speed in characters per minute
-   */
-  double getCharactersPerMinute() {
-    return charactersPerMinute;
-  }
-
   /**
    * Sets the words per minute to the specified value.
    *
@@ -59,15 +127,6 @@ public class PlayerState {
     this.wordsPerMinute = wordsPerMinute;
   }
 
-  /**
-   * Sets the characters per minute to the specified value.
-   *
-   * @param charactersPerMinute the new characters per minute
-   */
-  void setCharactersPerMinute(double charactersPerMinute) {
-    this.charactersPerMinute = charactersPerMinute;
-  }
-
   /**
    * Returns true if the Player is ready, false otherwise.
    *
@@ -97,16 +156,55 @@ public class PlayerState {
 
   /**
    * Increases the number of correctly typed characters (i.e. the current text's index) by one. This
-   * should generally be the only way the player's number of typed characters is changed.
+   * should generally be the only way the player's number of typed characters is changed. All errors
+   * made at the previous position count as corrected afterward.
    */
-  synchronized void incrementCurrentTextIndex() {
+  void incrementCurrentTextIndex() {
     currentTextIndex++;
+    numCorrectedErrors = numErrors;
+  }
+
+  /**
+   * Returns the number of characters typed until now, whether they were correct or not.
+   *
+   * @return the number of keystrokes until now
+   */
+  int getNumTypedCharacters() {
+    return numTypedCharacters;
+  }
+
+  /** Increases the number of typed characters by one. */
+  void incrementNumTypedCharacters() {
+    numTypedCharacters++;
+  }
+
+  /**
+   * Returns the number of incorrectly typed characters until now.
+   *
+   * @return the number of errors until now
+   */
+  int getNumErrors() {
+    return numErrors;
+  }
+
+  /** Increases the number of incorrectly typed characters by one. */
+  void incrementNumErrors() {
+    numErrors++;
+  }
+
+  /**
+   * Returns the number of errors that were corrected by typing the right character afterward.
+   *
+   * @return the number of corrected errors until now
+   */
+  int getNumCorrectedErrors() {
+    return numCorrectedErrors;
   }
 
   /**
-   * Returns the number of typed words until now.
+   * Returns the number of completed words until now.
    *
-   * @return the number of typed words until now
+   * @return the number of completed words until now
    */
   int getNumTypedWords() {
     return numTypedWords;
@@ -116,7 +214,7 @@ public class PlayerState {
    * Increases the number of correctly typed words by one. This should generally be the only way the
    * player's number of typed words is changed.
    */
-  public synchronized void incrementNumTypedWords() {
+  public void incrementNumTypedWords() {
     numTypedWords++;
   }
 
@@ -0,0 +1,76 @@
+package typeracer.game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import typeracer.communication.messages.server.RaceSnapshotNotification.PlayerState;
+
+/**
+ * Remembers the player states broadcast last and filters out those that did not change noticeably
+ * since. Every few ticks, a keyframe containing all players is let through to resynchronize the
+ * clients.
+ */
+final class PlayerStateDeltaFilter {
+
+  private final double epsilon;
+  private final int keyframeInterval;
+
+  private Map<Integer, PlayerState> lastSentById = new HashMap<>();
+  private int ticksUntilKeyframe;
+
+  /**
+   * Constructs a new PlayerStateDeltaFilter.
+   *
+   * @param epsilon the smallest change of a state that is let through
+   * @param keyframeInterval the number of ticks between two keyframes
+   */
+  PlayerStateDeltaFilter(double epsilon, int keyframeInterval) {
+    this.epsilon = epsilon;
+    this.keyframeInterval = keyframeInterval;
+  }
+
+  /**
+   * Returns whether the next call of {@link #filter(List, boolean)} returns all states, even if it
+   * is not forced to.
+   *
+   * @return true if a keyframe is due
+   */
+  boolean isKeyframeDue() {
+    return ticksUntilKeyframe == 0;
+  }
+
+  /**
+   * Returns the states that changed since they were last returned, or all of them if a keyframe is
+   * due. Players missing from the given states are forgotten.
+   *
+   * @param playerStates the current state of every player
+   * @param forceKeyframe whether all states should be returned regardless of the interval
+   * @return the states to broadcast, empty if nothing changed
+   */
+  List<PlayerState> filter(List<PlayerState> playerStates, boolean forceKeyframe) {
+    boolean keyframe = forceKeyframe || ticksUntilKeyframe == 0;
+    ticksUntilKeyframe = keyframe ? keyframeInterval - 1 : ticksUntilKeyframe - 1;
+
+    Map<Integer, PlayerState> sentById = new HashMap<>();
+    List<PlayerState> changed = new ArrayList<>();
+    for (PlayerState current : playerStates) {
+      PlayerState previous = lastSentById.get(current.getPlayerId());
+      if (keyframe || previous == null || hasChanged(previous, current)) {
+        changed.add(current);
+        sentById.put(current.getPlayerId(), current);
+      } else {
+        sentById.put(previous.getPlayerId(), previous);
+      }
+    }
+    lastSentById = sentById;
+    return changed;
+  }
+
+  private boolean hasChanged(PlayerState previous, PlayerState current) {
+    return Math.abs(current.getProgress() - previous.getProgress()) > epsilon
+        || Math.abs(current.getAccuracy() - previous.getAccuracy()) > epsilon
+        || Math.abs(current.getWpm() - previous.getWpm())
+            > epsilon * Math.max(1, Math.abs(previous.getWpm()));
+  }
+}
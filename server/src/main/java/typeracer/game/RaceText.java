@@ -0,0 +1,95 @@
+package typeracer.game;
+
+/**
+ * The text of a race, preprocessed once per game. Besides the text itself, it indexes where every
+ * word ends, so a keystroke tells whether it completed a word by comparing two ints instead of
+ * looking at characters. The index takes one int per word, however long the text is.
+ */
+final class RaceText {
+
+  private final String text;
+  private final int[] wordEnds;
+
+  /**
+   * Constructs a new RaceText and indexes its words.
+   *
+   * @param text the text the players have to type
+   */
+  RaceText(String text) {
+    this.text = text;
+    this.wordEnds = indexWordEnds(text);
+  }
+
+  /**
+   * Returns the positions after the character completing each word. A word is completed by typing
+   * the space following it, or its last character if it ends the text.
+   */
+  private static int[] indexWordEnds(String text) {
+    int numberOfWords = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (isWordEnd(text, i)) {
+        numberOfWords++;
+      }
+    }
+    int[] ends = new int[numberOfWords];
+    int word = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (isWordEnd(text, i)) {
+        ends[word++] = i + 1;
+      }
+    }
+    return ends;
+  }
+
+  private static boolean isWordEnd(String text, int index) {
+    boolean isSpace = Character.isSpaceChar(text.charAt(index));
+    if (index == text.length() - 1 && !isSpace) {
+      return true;
+    }
+    return isSpace && index > 0 && !Character.isSpaceChar(text.charAt(index - 1));
+  }
+
+  /**
+   * Returns the character at the given position.
+   *
+   * @param index the position in the text
+   * @return the character at the position
+   */
+  char charAt(int index) {
+    return text.charAt(index);
+  }
+
+  /**
+   * Returns the number of characters in the text.
+   *
+   * @return the length of the text
+   */
+  int length() {
+    return text.length();
+  }
+
+  /**
+   * Returns the number of characters typed correctly once the given word is completed.
+   *
+   * @param word the zero-based number of the word
+   * @return the number of characters up to and including the one completing the word, or a number
+   *     greater than the length of the text if there is no such word
+   */
+  int getWordEnd(int word) {
+    return word < wordEnds.length ? wordEnds[word] : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the number of words in the text.
+   *
+   * @return the number of words
+   */
+  int getNumberOfWords() {
+    return wordEnds.length;
+  }
+
+  @Override
+  public String toString() {
+    return text;
+  }
+}
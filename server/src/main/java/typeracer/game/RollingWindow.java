@@ -0,0 +1,24 @@
+package typeracer.game;
+
+/** The windows over which a player's recent typing speed and accuracy are measured. */
+public enum RollingWindow {
+  /** The last five seconds. */
+  FIVE_SECONDS(5_000_000_000L),
+  /** The last fifteen seconds. */
+  FIFTEEN_SECONDS(15_000_000_000L);
+
+  private final long lengthNanos;
+
+  RollingWindow(long lengthNanos) {
+    this.lengthNanos = lengthNanos;
+  }
+
+  /**
+   * Returns the length of this window.
+   *
+   * @return the length of this window in nanoseconds
+   */
+  public long getLengthNanos() {
+    return lengthNanos;
+  }
+}
@@ -1,15 +1,8 @@
 package typeracer.game;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Random;
 
 /**
@@ -18,9 +11,7 @@ import java.util.Random;
  */
 public class TextGenerator {
   private final String corpus;
-  private List<String> preprocessedCorpus = new ArrayList<>();
-  private HashMap<String, HashMap<String, Integer>> model = new HashMap<>();
-  private HashMap<String, Integer> startingProbabilities = new HashMap<>();
+  private MarkovModel model;
   private final Random random = new Random();
 
   /**
@@ -33,98 +24,66 @@ public class TextGenerator {
   }
 
   /**
-   * Preprocesses the corpus by converting it to lowercase, removing punctuation and non-ASCII
-   * characters, and splitting it into words.
+   * Constructs a TextGenerator generating text from an already trained model, e.g. one shared by
+   * the {@link ModelRegistry}.
    *
-   * @return the preprocessed corpus as an array of words.
+   * @param model the model to generate text from
    */
-  private List<String> preprocessCorpus() {
-    System.out.println("Preprocessing corpus...");
-    preprocessedCorpus =
-        List.of(
-            corpus
-                .toLowerCase()
-                .trim()
-                .replaceAll("\\p{Punct}|[^\\p{ASCII}]", "")
-                .split("[\\s \\t\\p{Cntrl}\\p{javaWhitespace}]+", 0));
-    preprocessedCorpus =
-        preprocessedCorpus.stream().filter(word -> !word.isEmpty() && !word.isBlank()).toList();
-    System.out.println("Corpus preprocessed.");
-    return preprocessedCorpus;
+  TextGenerator(MarkovModel model) {
+    corpus = null;
+    this.model = model;
   }
 
   /**
    * Trains a model based on the provided corpus and saves it with a unique model name. If a model
    * with the same name already exists, it loads the existing model instead of training a new one.
+   * Model files of an older format are replaced by a newly trained model.
    *
    * @param uniqueModelName the unique name for the model file.
    */
   public void trainModel(String uniqueModelName) {
-    File modelFile = new File(uniqueModelName + ".model");
-    File startingProbabilitiesFile = new File(uniqueModelName + ".sProbs");
-    if (modelFile.exists() && startingProbabilitiesFile.exists()) {
-      loadModelFromFiles(modelFile, startingProbabilitiesFile);
-    } else {
-      System.out.println("Training model...");
-      preprocessCorpus();
-      for (int i = 0; i < preprocessedCorpus.size() - 1; i++) {
-        String currentWord = preprocessedCorpus.get(i);
-        int currentPosition = i;
-        model.computeIfAbsent(
-            currentWord,
-            k -> {
-              startingProbabilities.put(currentWord, 0);
-              HashMap<String, Integer> frequencyDistribution = new HashMap<>();
-              for (int j = currentPosition; j < preprocessedCorpus.size() - 1; j++) {
-                if (currentWord.equals(preprocessedCorpus.get(j))) {
-                  startingProbabilities.put(
-                      currentWord, startingProbabilities.get(currentWord) + 1);
-                  String followingWord = preprocessedCorpus.get(j + 1);
-                  frequencyDistribution.putIfAbsent(followingWord, 0);
-                  frequencyDistribution.put(
-                      followingWord, frequencyDistribution.get(followingWord) + 1);
-                }
-              }
-              return frequencyDistribution;
-            });
-      }
-      writeModelToFile(uniqueModelName);
-      System.out.println("Model trained.");
+    Path modelFile = Path.of(uniqueModelName + ".model");
+    model = loadModel(modelFile);
+    if (model == null) {
+      model = trainAndSaveModel(corpus, modelFile);
     }
   }
 
-  private void writeModelToFile(String uniqueModelName) {
-    try {
-      ObjectOutputStream modelOutputStream =
-          new ObjectOutputStream(new FileOutputStream(uniqueModelName + ".model"));
-      modelOutputStream.writeObject(model);
-      modelOutputStream.flush();
-      modelOutputStream.close();
-
-      ObjectOutputStream startingProbabilitiesOutputStream =
-          new ObjectOutputStream(new FileOutputStream(uniqueModelName + ".sProbs"));
-      startingProbabilitiesOutputStream.writeObject(startingProbabilities);
-      startingProbabilitiesOutputStream.flush();
-      startingProbabilitiesOutputStream.close();
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+  /**
+   * Loads the model in the given file, if there is a valid one.
+   *
+   * @param modelFile the model file
+   * @return the model in the file, or null if there is no file or it cannot be loaded
+   */
+  static MarkovModel loadModel(Path modelFile) {
+    if (Files.exists(modelFile)) {
+      try {
+        return MarkovModel.load(modelFile);
+      } catch (IOException e) {
+        System.out.println("Could not load model " + modelFile + ": " + e.getMessage());
+      }
     }
+    return null;
   }
 
-  private void loadModelFromFiles(File modelFile, File startingProbabilitiesFile) {
+  /**
+   * Trains a model on the given corpus and saves it to the given file, so it can be loaded next
+   * time. A model that cannot be saved is still returned.
+   *
+   * @param corpus the corpus to train the model on
+   * @param modelFile the file to save the model to
+   * @return the trained model
+   */
+  static MarkovModel trainAndSaveModel(String corpus, Path modelFile) {
+    System.out.println("Training model...");
+    MarkovModel model = MarkovModel.fromCounts(BigramTrainer.train(corpus));
     try {
-      ObjectInputStream modelInputStream = new ObjectInputStream(new FileInputStream(modelFile));
-      model = (HashMap<String, HashMap<String, Integer>>) modelInputStream.readObject();
-      modelInputStream.close();
-
-      ObjectInputStream startingProbabilitiesInputStream =
-          new ObjectInputStream(new FileInputStream(startingProbabilitiesFile));
-      startingProbabilities =
-          (HashMap<String, Integer>) startingProbabilitiesInputStream.readObject();
-      startingProbabilitiesInputStream.close();
-    } catch (IOException | ClassNotFoundException e) {
-      throw new RuntimeException(e);
+      model.write(modelFile);
+    } catch (IOException e) {
+      System.out.println("Could not save model " + modelFile + ": " + e.getMessage());
     }
+    System.out.println("Model trained.");
+    return model;
   }
 
   /**
@@ -138,18 +97,14 @@ public class TextGenerator {
     System.out.println("Generating text...");
     StringBuilder output = new StringBuilder();
 
-    String startingWord = sampleFromDistribution(startingProbabilities);
-
-    output.append(startingWord).append(" ");
+    int word = model.sampleStartingWord(random);
+    model.appendWord(word, output);
+    output.append(" ");
 
-    String newWord = startingWord;
     for (int i = 0; i < words; i++) {
-      if (model.get(newWord) == null || newWord.isBlank()) {
-        newWord = sampleFromDistribution(startingProbabilities);
-      } else {
-        newWord = sampleFromDistribution(model.get(newWord));
-      }
-      output.append(newWord);
+      int nextWord = model.sampleNextWord(word, random);
+      word = nextWord < 0 ? model.sampleStartingWord(random) : nextWord;
+      model.appendWord(word, output);
       if (i < words - 1) {
         output.append(" ");
       }
@@ -157,26 +112,4 @@ public class TextGenerator {
     System.out.println("Text generated.");
     return output.toString();
   }
-
-  /**
-   * Samples a word from a given frequency distribution. This method randomly selects a word from
-   * the distribution based on their frequencies.
-   *
-   * @param distribution the frequency distribution of words.
-   * @return a randomly selected word from the distribution.
-   */
-  private String sampleFromDistribution(HashMap<String, Integer> distribution) {
-    int index = random.nextInt(distribution.values().stream().reduce(0, Integer::sum));
-    int accumulator = 0;
-    for (Map.Entry<String, Integer> entry : distribution.entrySet()) {
-      if (accumulator >= index) {
-        return entry.getKey();
-      }
-      accumulator += distribution.get(entry.getKey());
-      if (accumulator >= index) {
-        return entry.getKey();
-      }
-    }
-    return "";
-  }
 }
@@ -0,0 +1,217 @@
+package typeracer.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import typeracer.server.utils.ServerMetrics;
+
+/**
+ * Keeps a few race texts ready for every corpus and text length, so creating a session takes a
+ * finished text instead of generating one. Texts are generated by a single daemon thread of the
+ * lowest priority, which refills a pool whenever a text was taken from it, so it only uses CPU
+ * time the sessions leave over.
+ *
+ * <p>Taking a text never waits: if the pool is empty, e.g. right after the server started or
+ * while many sessions are created at once, no text is returned and the caller generates one
+ * itself. How often this happens is counted in the metrics <code>texts.hits</code> and <code>
+ * texts.misses</code>.
+ */
+public final class TextPool {
+
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final TextPool INSTANCE =
+      new TextPool(ModelRegistry.getInstance(), DEFAULT_CAPACITY);
+  private static final LongAdder HITS = ServerMetrics.getInstance().counter("texts.hits");
+  private static final LongAdder MISSES = ServerMetrics.getInstance().counter("texts.misses");
+  private static final LongAdder PRODUCED = ServerMetrics.getInstance().counter("texts.produced");
+
+  private final ModelRegistry modelRegistry;
+  private final Map<TextKey, BlockingQueue<String>> pools = new ConcurrentHashMap<>();
+  private final BlockingQueue<TextKey> refills = new LinkedBlockingQueue<>();
+  private final Set<TextKey> pendingRefills = ConcurrentHashMap.newKeySet();
+  private final AtomicReference<Thread> producer = new AtomicReference<>();
+  private volatile int capacity;
+
+  /**
+   * Creates a pool generating texts from the models of the given registry.
+   *
+   * @param modelRegistry the registry to take the models of the corpora from
+   * @param capacity the number of texts to keep ready for every corpus and text length
+   */
+  TextPool(ModelRegistry modelRegistry, int capacity) {
+    this.modelRegistry = modelRegistry;
+    setCapacity(capacity);
+  }
+
+  /**
+   * Returns the singleton instance of TextPool.
+   *
+   * @return the singleton instance of TextPool
+   */
+  public static TextPool getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Sets the number of texts to keep ready for every corpus and text length. It only applies to
+   * corpora and lengths no text has been requested for yet, so it should be set at startup.
+   *
+   * @param capacity the number of texts, or 0 to always generate texts when they are needed
+   */
+  public void setCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("The capacity of the text pool must not be negative");
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * Takes a ready text generated from the given corpus and requests a new one in its place.
+   *
+   * @param corpus the corpus file the text is generated from
+   * @param words the number of words the text was generated with
+   * @return the text, or null if none is ready and the caller has to generate one
+   */
+  String poll(File corpus, int words) {
+    TextKey key = new TextKey(corpus, words);
+    BlockingQueue<String> texts = pools.get(key);
+    if (texts == null) {
+      if (capacity == 0) {
+        MISSES.increment();
+        return null;
+      }
+      texts = pools.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(capacity));
+    }
+    String text = texts.poll();
+    if (text != null) {
+      HITS.increment();
+    } else {
+      MISSES.increment();
+    }
+    requestRefill(key);
+    return text;
+  }
+
+  /**
+   * Requests texts for the given corpus to be generated in the background, e.g. at startup before
+   * the first session is created.
+   *
+   * @param corpus the corpus file to generate texts from
+   * @param words the number of words to generate the texts with
+   */
+  void fill(File corpus, int words) {
+    if (capacity > 0) {
+      TextKey key = new TextKey(corpus, words);
+      pools.computeIfAbsent(key, k -> new ArrayBlockingQueue<>(capacity));
+      requestRefill(key);
+    }
+  }
+
+  /**
+   * Returns the number of texts ready for the given corpus and text length.
+   *
+   * @param corpus the corpus file the texts are generated from
+   * @param words the number of words the texts are generated with
+   * @return the number of ready texts
+   */
+  int size(File corpus, int words) {
+    BlockingQueue<String> texts = pools.get(new TextKey(corpus, words));
+    return texts == null ? 0 : texts.size();
+  }
+
+  private void requestRefill(TextKey key) {
+    if (pendingRefills.add(key)) {
+      refills.add(key);
+      startProducer();
+    }
+  }
+
+  private void startProducer() {
+    if (producer.get() == null) {
+      Thread thread =
+          Thread.ofPlatform()
+              .name("text-producer")
+              .daemon()
+              .priority(Thread.MIN_PRIORITY)
+              .unstarted(this::produce);
+      if (producer.compareAndSet(null, thread)) {
+        thread.start();
+      }
+    }
+  }
+
+  /** Stops generating texts. Only used by tests, as the producer of the server runs until exit. */
+  void stop() {
+    Thread thread = producer.get();
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  private void produce() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        TextKey key = refills.take();
+        // Texts taken while refilling request another refill, so none is missed
+        pendingRefills.remove(key);
+        try {
+          refill(key);
+        } catch (RuntimeException e) {
+          // A single faulty corpus must not stop the texts of all others from being generated
+          System.out.println("Could not generate texts from " + key.corpus + ": " + e);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void refill(TextKey key) {
+    BlockingQueue<String> texts = pools.get(key);
+    if (texts.remainingCapacity() == 0) {
+      return;
+    }
+    MarkovModel model;
+    try {
+      model = modelRegistry.getModel(key.corpus);
+    } catch (IOException e) {
+      System.out.println("Could not generate texts from " + key.corpus + ": " + e.getMessage());
+      return;
+    }
+    TextGenerator textGenerator = new TextGenerator(model);
+    // Only this thread adds texts, so the pool cannot fill up in between
+    while (texts.remainingCapacity() > 0) {
+      texts.add(TextSource.generateText(textGenerator, key.words));
+      PRODUCED.increment();
+    }
+  }
+
+  /** The corpus and length of the texts in a pool. */
+  private static final class TextKey {
+    private final File corpus;
+    private final int words;
+
+    private TextKey(File corpus, int words) {
+      this.corpus = corpus;
+      this.words = words;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof TextKey other && corpus.equals(other.corpus) && words == other.words;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(corpus, words);
+    }
+  }
+}
@@ -18,6 +18,7 @@ public class TextSource {
   private static final String CORPUS_SOURCE_FOLDER = "corpus_sources";
   private static final String DEFAULT_TEXT_FILE = "bee_movie.txt";
   private static final String DEFAULT_CORPUS_FILE = "alice_in_wonderland.txt";
+  private static final int GENERATED_TEXT_WORDS = 100;
   private static final String DEFAULT_TEXT_FILE_PATH =
       TEXT_SOURCE_FOLDER + File.separator + DEFAULT_TEXT_FILE;
   private static final String DEFAULT_CORPUS_FILE_PATH =
@@ -69,11 +70,27 @@ public class TextSource {
    * @throws IOException if an I/O error occurs.
    */
   public void setTextGeneratedFromDefaultCorpus() throws IOException {
+    setTextGeneratedFromCorpus(getDefaultCorpusFile());
+  }
+
+  /**
+   * Loads the model of the default corpus into the {@link ModelRegistry} and starts generating
+   * texts from it in the {@link TextPool}, so the first games do not have to wait for either.
+   *
+   * @throws IOException if the corpus has to be read but cannot be
+   */
+  public static void prepareDefaultCorpus() throws IOException {
+    File corpus = getDefaultCorpusFile();
+    ModelRegistry.getInstance().getModel(corpus);
+    TextPool.getInstance().fill(corpus, GENERATED_TEXT_WORDS);
+  }
+
+  private static File getDefaultCorpusFile() {
     ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
     URL textFileUrl = classLoader.getResource(DEFAULT_CORPUS_FILE_PATH);
     assert textFileUrl != null;
     try {
-      setTextGeneratedFromCorpus(new File(textFileUrl.toURI()));
+      return new File(textFileUrl.toURI());
     } catch (URISyntaxException e) {
       throw new RuntimeException("Error with converting default text file URL to URI");
     }
@@ -135,7 +152,7 @@ public class TextSource {
    * @return the content of the file as a single string.
    * @throws IOException if an I/O error occurs.
    */
-  private String getTextFromFile(File file) throws IOException {
+  static String getTextFromFile(File file) throws IOException {
     try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
       String line = reader.readLine();
 
@@ -184,15 +201,21 @@ public class TextSource {
   }
 
   /**
-   * Sets the text generated from the specified corpus file.
+   * Sets the text generated from the specified corpus file. A text generated in advance by the
+   * {@link TextPool} is used if one is ready. Otherwise, the text is generated right away from the
+   * model of the corpus in the {@link ModelRegistry}, so the corpus is only read and trained on if
+   * no session used it recently.
    *
    * @param file the corpus file to use for generating text.
    * @throws IOException if an I/O error occurs.
    */
   public void setTextGeneratedFromCorpus(File file) throws IOException {
-    TextGenerator textGenerator = new TextGenerator(getTextFromFile(file));
-    textGenerator.trainModel(file.getName());
-    setTextGeneratedFromTextGenerator(textGenerator);
+    String text = TextPool.getInstance().poll(file, GENERATED_TEXT_WORDS);
+    if (text == null) {
+      MarkovModel model = ModelRegistry.getInstance().getModel(file);
+      text = generateText(new TextGenerator(model), GENERATED_TEXT_WORDS);
+    }
+    currentText = text;
   }
 
   /**
@@ -201,7 +224,18 @@ public class TextSource {
    * @param textGenerator the TextGenerator to use for generating text.
    */
   public void setTextGeneratedFromTextGenerator(TextGenerator textGenerator) {
-    currentText = textGenerator.generateText(100).replaceAll(" +", " ");
+    currentText = generateText(textGenerator, GENERATED_TEXT_WORDS);
+  }
+
+  /**
+   * Generates a text to type with the given generator.
+   *
+   * @param textGenerator the generator to generate the text with
+   * @param words the number of words to generate
+   * @return the generated text, with single spaces between words
+   */
+  static String generateText(TextGenerator textGenerator, int words) {
+    return textGenerator.generateText(words).replaceAll(" +", " ");
   }
 
   /**
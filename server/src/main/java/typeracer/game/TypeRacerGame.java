@@ -1,23 +1,39 @@
 package typeracer.game;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import typeracer.communication.messages.server.GameStateNotification;
-import typeracer.communication.messages.server.PlayerStateNotification;
+import typeracer.communication.messages.server.RaceSnapshotNotification;
+import typeracer.communication.messages.server.RaceSnapshotNotification.PlayerState;
+import typeracer.communication.messages.server.RaceSnapshotNotification.RollingStats;
 import typeracer.communication.messages.server.TextNotification;
 import typeracer.communication.statuscodes.GameStatus;
 import typeracer.game.timer.PlayerStateNotifier;
+import typeracer.game.timer.RacePace;
 import typeracer.server.session.Session;
+import typeracer.server.utils.BatchTypingResult;
 import typeracer.server.utils.TypingResult;
 
-/** The main class for the game, managing states and providing an interface for the server. */
+/**
+ * The main class for the game, managing states and providing an interface for the server. A game is
+ * only accessed from the events of its {@link Session}, which run one at a time, so it does not
+ * synchronize.
+ */
 public final class TypeRacerGame { // made final to prevent finalizer attacks in constructor
 
+  private static final long IDLE_THRESHOLD_NANOS = 2_000_000_000L;
+  private static final double CLOSE_RACE_PROGRESS = 0.05;
+  private static final long NANO_SECONDS_PER_MILLISECOND = 1_000_000L;
+
   private final GameState state;
   private long gameStartTime;
   private final Session session;
   private final PlayerStateNotifier notifier;
+  private final PlayerStateDeltaFilter deltaFilter = createDeltaFilter();
+  private final boolean rollingStatsEnabled =
+      BroadcastSettings.getInstance().isRollingStatsEnabled();
 
   /**
    * Allows to create an instance of this class with a custom {@link TextSource}.
@@ -28,7 +44,7 @@ public final class TypeRacerGame { // made final to prevent finalizer attacks in
   public TypeRacerGame(TextSource textSource, Session session) {
     state = new GameState(textSource);
     this.session = session;
-    notifier = PlayerStateNotifier.create(this);
+    notifier = PlayerStateNotifier.create(this, session::execute);
   }
 
   /**
@@ -45,7 +61,12 @@ public final class TypeRacerGame { // made final to prevent finalizer attacks in
     }
     state = new GameState(textSource);
     this.session = session;
-    notifier = PlayerStateNotifier.create(this);
+    notifier = PlayerStateNotifier.create(this, session::execute);
+  }
+
+  private static PlayerStateDeltaFilter createDeltaFilter() {
+    BroadcastSettings settings = BroadcastSettings.getInstance();
+    return new PlayerStateDeltaFilter(settings.getStateEpsilon(), settings.getKeyframeInterval());
   }
 
   /** Starts a new game with a new text. */
@@ -77,7 +98,7 @@ public final class TypeRacerGame { // made final to prevent finalizer attacks in
     GameStatus finished = GameStatus.FINISHED;
     state.setGameStatus(finished);
     notifier.stop();
-    broadcastPlayerStates();
+    broadcastPlayerStates(true);
     session.broadcastMessage(new GameStateNotification(finished));
   }
 
@@ -86,8 +107,8 @@ public final class TypeRacerGame { // made final to prevent finalizer attacks in
    *
    * @param id of the player
    */
-  public synchronized void addPlayer(int id) {
-    if (state.getIds().contains(id)) {
+  public void addPlayer(int id) {
+    if (state.containsPlayer(id)) {
       throw new AssertionError("ID " + id + " already contained in player list.");
     }
     state.addPlayer(id, new Player(id));
@@ -99,12 +120,10 @@ public final class TypeRacerGame { // made final to prevent finalizer attacks in
    * @param id of the player that will be removed
    */
   public void removePlayer(int id) {
-    synchronized (this) {
-      if (state.getIds().contains(id)) {
-        state.removePlayer(id);
-      } else {
-        throw new AssertionError("ID " + id + " not contained in player list.");
-      }
+    if (state.containsPlayer(id)) {
+      state.removePlayer(id);
+    } else {
+      throw new AssertionError("ID " + id + " not contained in player list.");
     }
   }
 
@@ -116,47 +135,204 @@ public final class TypeRacerGame { // made final to prevent finalizer attacks in
    * @return The result of the typing attempt
    */
   public TypingResult typeCharacter(int id, char character) {
-    if (getIds().contains(id)) {
-      TypingResult typingResult = TypingResult.PLAYER_FINISHED_ALREADY;
-      if (!isGameFinished()) {
-        Player player = state.getPlayerById(id);
-        if (!player.isFinished()) {
-          typingResult = player.typeCharacter(character, state.getTextToType(), gameStartTime);
-          isGameFinished();
-        }
-      }
-      return typingResult;
-    } else {
+    Player player = state.findPlayerById(id);
+    if (player == null) {
       throw new IllegalArgumentException(id + "is an invalid playerID");
     }
+    return typeCharacter(player, character);
   }
 
-  private boolean isGameFinished() {
-    boolean allFinished = true;
-    for (Player player : getPlayerList()) {
-      if (!player.isFinished()) {
-        allFinished = false;
+  /**
+   * Makes the given Player type the given character. Unlike {@link #typeCharacter(int, char)}, this
+   * does not need to look the player up. Typing does not allocate unless it ends the game.
+   *
+   * @param player the player that types, must be part of this game
+   * @param character the character that is typed
+   * @return The result of the typing attempt
+   */
+  public TypingResult typeCharacter(Player player, char character) {
+    return typeCharacter(player, character, System.nanoTime());
+  }
+
+  private TypingResult typeCharacter(Player player, char character, long time) {
+    if (isGameFinished() || player.isFinished()) {
+      return TypingResult.PLAYER_FINISHED_ALREADY;
+    }
+    TypingResult typingResult =
+        player.typeCharacter(character, state.getRaceText(), gameStartTime, time);
+    if (player.isFinished()) {
+      state.playerFinished();
+      isGameFinished();
+    }
+    return typingResult;
+  }
+
+  /**
+   * Makes the given Player type a run of characters in one pass. The characters are timed by the
+   * client's offsets, counting back from now for the last one, but never before the character
+   * typed last or the start of the game. Characters after the one finishing the text are ignored.
+   *
+   * @param player the player that types, must be part of this game
+   * @param characters the characters in the order they were typed
+   * @param timeOffsets for every character, the milliseconds since the first one was typed, or
+   *     null to type all of them now
+   * @return the result of typing the characters
+   * @throws IllegalArgumentException if the offsets do not match the characters, do not start at 0
+   *     or decrease
+   */
+  public BatchTypingResult typeCharacters(Player player, String characters, int[] timeOffsets) {
+    int length = characters.length();
+    if (timeOffsets != null) {
+      if (timeOffsets.length != length) {
+        throw new IllegalArgumentException(
+            length + " characters, but " + timeOffsets.length + " time offsets");
+      }
+      if (length > 0 && timeOffsets[0] != 0) {
+        throw new IllegalArgumentException("The first time offset must be 0");
+      }
+      for (int i = 1; i < length; i++) {
+        if (timeOffsets[i] < timeOffsets[i - 1]) {
+          throw new IllegalArgumentException("Time offsets must not decrease");
+        }
+      }
+    }
+    long now = System.nanoTime();
+    long earliest = Math.max(player.getLastTypedTime(), gameStartTime);
+    int typedCharacters = 0;
+    int firstError = -1;
+    while (typedCharacters < length && !player.isFinished()) {
+      long time = now;
+      if (timeOffsets != null) {
+        long millisBeforeLast = (long) timeOffsets[length - 1] - timeOffsets[typedCharacters];
+        time = Math.max(earliest, now - millisBeforeLast * NANO_SECONDS_PER_MILLISECOND);
+      }
+      TypingResult result = typeCharacter(player, characters.charAt(typedCharacters), time);
+      if (result == TypingResult.PLAYER_FINISHED_ALREADY) {
         break;
       }
+      if (result == TypingResult.INCORRECT && firstError < 0) {
+        firstError = typedCharacters;
+      }
+      typedCharacters++;
     }
+    return new BatchTypingResult(typedCharacters, player.getTextIndex(), firstError);
+  }
 
-    if (allFinished) {
+  private boolean isGameFinished() {
+    // The finished players are counted as they finish, so no player has to be looked at
+    if (state.isEveryoneFinished()) {
       stop();
       return true;
     }
     return false;
   }
 
-  /** Broadcasts every player's state to every player. */
+  /**
+   * Broadcasts the state of every player whose state changed since the last broadcast to every
+   * player as a single snapshot. Nothing is sent if no state changed. If enabled in the {@link
+   * BroadcastSettings}, the states carry rolling statistics, but changes of those alone do not
+   * count, so the rolling statistics of an idle player are only sent again with the next keyframe.
+   */
   public void broadcastPlayerStates() {
+    broadcastPlayerStates(false);
+  }
+
+  private void broadcastPlayerStates(boolean forceKeyframe) {
+    RaceSnapshotNotification snapshot = createRaceSnapshot(forceKeyframe);
+    if (snapshot != null) {
+      session.broadcastRaceSnapshot(snapshot);
+    }
+  }
+
+  /**
+   * Creates a snapshot of the players whose state changed since the last snapshot. The words per
+   * minute of a player drop while they pause, but are only recomputed for keyframes: otherwise, an
+   * idle player would change on every tick. Between keyframes, clients extrapolate the drop.
+   *
+   * @param forceKeyframe whether the snapshot should contain every player
+   * @return the snapshot, or null if no state changed
+   */
+  RaceSnapshotNotification createRaceSnapshot(boolean forceKeyframe) {
+    boolean keyframeDue = forceKeyframe || deltaFilter.isKeyframeDue();
+    List<PlayerState> playerStates = new ArrayList<>();
     for (Player player : getPlayerList()) {
-      session.broadcastMessage(
-          new PlayerStateNotification(
-              player.getAccuracy(),
+      if (keyframeDue) {
+        player.updateWordsPerMinute();
+      }
+      PlayerSnapshot snapshot = player.getSnapshot();
+      playerStates.add(
+          new PlayerState(
+              snapshot.getAccuracy(),
               player.getId(),
-              player.getProgress(),
-              player.getWordsPerMinute()));
+              snapshot.getProgress(),
+              snapshot.getWordsPerMinute(),
+              rollingStatsEnabled ? getRollingStats(player) : null));
+    }
+    List<PlayerState> changedStates = deltaFilter.filter(playerStates, forceKeyframe);
+    if (changedStates.isEmpty()) {
+      return null;
+    }
+    boolean keyframe = changedStates.size() == playerStates.size();
+    return new RaceSnapshotNotification(changedStates, keyframe);
+  }
+
+  private static RollingStats getRollingStats(Player player) {
+    return new RollingStats(
+        player.getRollingAccuracy(RollingWindow.FIVE_SECONDS),
+        player.getRollingAccuracy(RollingWindow.FIFTEEN_SECONDS),
+        player.getRollingWordsPerMinute(RollingWindow.FIVE_SECONDS),
+        player.getRollingWordsPerMinute(RollingWindow.FIFTEEN_SECONDS));
+  }
+
+  /**
+   * Returns how eventful the race currently is, which determines how often player states are
+   * broadcast. A player is considered active if they typed within the last two seconds.
+   *
+   * @return {@link RacePace#CLOSE} if at least two active players are within five percent of
+   *     progress, {@link RacePace#IDLE} if no player is active, and {@link RacePace#ACTIVE}
+   *     otherwise
+   */
+  public RacePace getRacePace() {
+    long now = System.nanoTime();
+    int activePlayers = 0;
+    double minProgress = 1;
+    double maxProgress = 0;
+    for (Player player : getPlayerList()) {
+      long lastActivity = Math.max(player.getLastTypedTime(), gameStartTime);
+      if (player.isFinished() || now - lastActivity > IDLE_THRESHOLD_NANOS) {
+        continue;
+      }
+      activePlayers++;
+      minProgress = Math.min(minProgress, player.getProgress());
+      maxProgress = Math.max(maxProgress, player.getProgress());
+    }
+
+    if (activePlayers == 0) {
+      return RacePace.IDLE;
     }
+    if (activePlayers >= 2 && maxProgress - minProgress <= CLOSE_RACE_PROGRESS) {
+      return RacePace.CLOSE;
+    }
+    return RacePace.ACTIVE;
+  }
+
+  /**
+   * Returns the id of the session this game is running in.
+   *
+   * @return the id of the session
+   */
+  public int getSessionId() {
+    return session.getId();
+  }
+
+  /**
+   * Returns the player with the given id.
+   *
+   * @param id of the player
+   * @return the player with the given id, or null if it is not part of this game
+   */
+  public Player getPlayer(int id) {
+    return state.findPlayerById(id);
   }
 
   /**
@@ -184,7 +360,7 @@ public final class TypeRacerGame { // made final to prevent finalizer attacks in
    * @param isReady true if the player is ready, false otherwise
    * @return true if the ReadyStatus of the player has been changed
    */
-  public synchronized boolean setPlayerReady(int id, boolean isReady) {
+  public boolean setPlayerReady(int id, boolean isReady) {
     if (getStatus().equals(GameStatus.WAITING_FOR_PLAYERS)) {
       state.getPlayerById(id).setIsReady(isReady);
       return true;
@@ -0,0 +1,315 @@
+package typeracer.game.timer;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A process-wide timer shared by all games. Timeouts are kept in a hashed timing wheel, a ring of
+ * buckets that a single ticker thread advances in fixed steps, so scheduling and cancelling a
+ * timeout takes constant time regardless of how many are pending. Expired tasks are run on a small
+ * pool of worker threads, which keeps the ticker on schedule even if a task is slow.
+ *
+ * <p>Timeouts fire at most one tick late, so the tick duration bounds the timer's precision.
+ */
+public final class HashedWheelTimer extends Timer {
+
+  private static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+  private static final int DEFAULT_WHEEL_SIZE = 512;
+  private static final int MAX_TIMEOUTS_PER_TICK = 100_000;
+  private static final HashedWheelTimer INSTANCE =
+      new HashedWheelTimer(
+          DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE, Runtime.getRuntime().availableProcessors());
+
+  private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Bucket[] wheel;
+  private final int mask;
+  private final long tickDurationNanos;
+  private final int numberOfWorkers;
+
+  private volatile long startTime;
+  private boolean stopped;
+  private Thread ticker;
+  private ExecutorService workers;
+
+  /**
+   * Constructs a new HashedWheelTimer. Most callers should use the shared {@link #getInstance()
+   * instance} instead.
+   *
+   * @param tickDuration the time between two ticks
+   * @param wheelSize the number of buckets, rounded up to a power of two
+   * @param numberOfWorkers the number of threads running expired tasks
+   */
+  public HashedWheelTimer(Duration tickDuration, int wheelSize, int numberOfWorkers) {
+    if (tickDuration.toMillis() <= 0) {
+      throw new IllegalArgumentException("The tick duration must be at least one millisecond");
+    }
+    if (wheelSize <= 0 || wheelSize > 1 << 30) {
+      throw new IllegalArgumentException("The wheel size must be between 1 and 2^30");
+    }
+    if (numberOfWorkers <= 0) {
+      throw new IllegalArgumentException("The number of workers must be positive");
+    }
+    this.wheel = new Bucket[roundUpToPowerOfTwo(wheelSize)];
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = wheel.length - 1;
+    this.tickDurationNanos = tickDuration.toNanos();
+    this.numberOfWorkers = numberOfWorkers;
+  }
+
+  private static int roundUpToPowerOfTwo(int value) {
+    int powerOfTwo = 1;
+    while (powerOfTwo < value) {
+      powerOfTwo <<= 1;
+    }
+    return powerOfTwo;
+  }
+
+  /**
+   * Returns the timer shared by all games. It is started on first use.
+   *
+   * @return the shared HashedWheelTimer instance
+   */
+  public static HashedWheelTimer getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException if the timer has been stopped before
+   */
+  @Override
+  public void start() {
+    lock.lock();
+    try {
+      if (isRunning) {
+        return;
+      }
+      if (stopped) {
+        throw new IllegalStateException("A stopped timer cannot be restarted");
+      }
+      isRunning = true;
+      startTime = System.nanoTime();
+      workers =
+          Executors.newFixedThreadPool(
+              numberOfWorkers, Thread.ofPlatform().name("timer-worker-", 0).daemon().factory());
+      ticker = Thread.ofPlatform().name("timer-ticker").daemon().start(this::runTicker);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void stop() {
+    lock.lock();
+    try {
+      if (!isRunning) {
+        return;
+      }
+      isRunning = false;
+      stopped = true;
+      ticker.interrupt();
+      workers.shutdownNow();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Schedules a task to be run once after the given delay. Starts the timer if necessary.
+   *
+   * @param task the task to run
+   * @param delay the time to wait before running the task
+   * @return a handle to cancel the task
+   * @throws IllegalStateException if the timer has been stopped
+   */
+  public Timeout schedule(Runnable task, Duration delay) {
+    start();
+    long deadline = System.nanoTime() + Math.max(0, delay.toNanos()) - startTime;
+    Timeout timeout = new Timeout(this, task, deadline);
+    newTimeouts.add(timeout);
+    return timeout;
+  }
+
+  private void runTicker() {
+    long tick = 0;
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        long deadline = waitForNextTick(tick);
+        removeCancelledTimeouts();
+        transferNewTimeouts(tick);
+        wheel[(int) (tick & mask)].expireTimeouts(deadline);
+        tick++;
+      }
+    } catch (InterruptedException e) {
+      // Interrupted by stop()
+    }
+  }
+
+  /** Sleeps until the given tick is due and returns its deadline relative to the start time. */
+  private long waitForNextTick(long tick) throws InterruptedException {
+    long deadline = tickDurationNanos * (tick + 1);
+    long sleepNanos;
+    while ((sleepNanos = deadline - (System.nanoTime() - startTime)) > 0) {
+      Thread.sleep(Duration.ofNanos(sleepNanos));
+    }
+    return deadline;
+  }
+
+  private void removeCancelledTimeouts() {
+    Timeout timeout;
+    while ((timeout = cancelledTimeouts.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  private void transferNewTimeouts(long tick) {
+    for (int i = 0; i < MAX_TIMEOUTS_PER_TICK; i++) {
+      Timeout timeout = newTimeouts.poll();
+      if (timeout == null) {
+        return;
+      }
+      if (timeout.state.get() == Timeout.CANCELLED) {
+        continue;
+      }
+      long calculatedTick = timeout.deadline / tickDurationNanos;
+      timeout.remainingRounds = (calculatedTick - tick) / wheel.length;
+      // Timeouts that are already due go into the current bucket to expire right away
+      long targetTick = Math.max(calculatedTick, tick);
+      wheel[(int) (targetTick & mask)].add(timeout);
+    }
+  }
+
+  private void dispatch(Timeout timeout) {
+    try {
+      workers.execute(timeout::run);
+    } catch (RuntimeException e) {
+      System.out.println("A timer task could not be dispatched: " + e.getMessage());
+    }
+  }
+
+  /** A handle to a task scheduled with a {@link HashedWheelTimer}. */
+  public static final class Timeout {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final HashedWheelTimer timer;
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    // Only accessed by the ticker thread
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout previous;
+    private Timeout next;
+
+    private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+      this.timer = timer;
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the task unless it has already expired.
+     *
+     * @return <code>true</code> if the task was cancelled, <code>false</code> otherwise
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(PENDING, CANCELLED)) {
+        return false;
+      }
+      timer.cancelledTimeouts.add(this);
+      return true;
+    }
+
+    /**
+     * Returns whether the task has been cancelled.
+     *
+     * @return <code>true</code> if the task was cancelled, <code>false</code> otherwise
+     */
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    private void expire() {
+      if (state.compareAndSet(PENDING, EXPIRED)) {
+        timer.dispatch(this);
+      }
+    }
+
+    private void run() {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        System.out.println("A timer task failed: " + e);
+      }
+    }
+  }
+
+  /** A doubly linked list of timeouts, so cancelled timeouts can be removed in constant time. */
+  private static final class Bucket {
+
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.previous = tail;
+      }
+      tail = timeout;
+    }
+
+    private void remove(Timeout timeout) {
+      if (timeout.previous != null) {
+        timeout.previous.next = timeout.next;
+      } else {
+        head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.previous = timeout.previous;
+      } else {
+        tail = timeout.previous;
+      }
+      timeout.bucket = null;
+      timeout.previous = null;
+      timeout.next = null;
+    }
+
+    /** Expires every timeout of this bucket whose last round has come. */
+    private void expireTimeouts(long deadline) {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0) {
+          remove(timeout);
+          if (timeout.deadline <= deadline) {
+            timeout.expire();
+          } else {
+            throw new IllegalStateException("A timeout was placed into the wrong bucket");
+          }
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+  }
+}
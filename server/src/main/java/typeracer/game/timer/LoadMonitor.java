@@ -0,0 +1,70 @@
+package typeracer.game.timer;
+
+import com.sun.management.OperatingSystemMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import typeracer.server.connection.ConnectionManager;
+import typeracer.server.utils.ServerMetrics;
+
+/**
+ * Periodically samples the load of the server, i.e. the CPU usage and how many messages are
+ * waiting to be sent, and derives a factor by which all games slow down their state broadcasts.
+ */
+public final class LoadMonitor {
+
+  private static final LoadMonitor INSTANCE = new LoadMonitor();
+  private static final Duration SAMPLING_INTERVAL = Duration.ofSeconds(1);
+  private static final double HIGH_CPU_LOAD = 0.75;
+  private static final double CRITICAL_CPU_LOAD = 0.9;
+  private static final double HIGH_QUEUE_DEPTH = 16;
+  private static final double CRITICAL_QUEUE_DEPTH = 64;
+
+  private final OperatingSystemMXBean operatingSystem =
+      ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+  private final AtomicBoolean started = new AtomicBoolean();
+  private volatile int backoffFactor = 1;
+
+  private LoadMonitor() {}
+
+  /**
+   * Returns the singleton instance of LoadMonitor.
+   *
+   * @return the singleton instance of LoadMonitor
+   */
+  public static LoadMonitor getInstance() {
+    return INSTANCE;
+  }
+
+  /** Starts sampling the load on the shared {@link HashedWheelTimer}, unless already started. */
+  public void start() {
+    if (started.compareAndSet(false, true)) {
+      HashedWheelTimer.getInstance().schedule(this::sample, Duration.ZERO);
+    }
+  }
+
+  private void sample() {
+    // The CPU load is negative if it is not available on this platform
+    double cpuLoad = operatingSystem == null ? -1 : operatingSystem.getCpuLoad();
+    double queueDepth = ConnectionManager.getInstance().getAverageOutboundQueueDepth();
+    if (cpuLoad >= CRITICAL_CPU_LOAD || queueDepth >= CRITICAL_QUEUE_DEPTH) {
+      backoffFactor = 4;
+    } else if (cpuLoad >= HIGH_CPU_LOAD || queueDepth >= HIGH_QUEUE_DEPTH) {
+      backoffFactor = 2;
+    } else {
+      backoffFactor = 1;
+    }
+    ServerMetrics.getInstance().setGauge("load.backoff-factor", backoffFactor);
+    HashedWheelTimer.getInstance().schedule(this::sample, SAMPLING_INTERVAL);
+  }
+
+  /**
+   * Returns the factor by which state broadcasts are currently slowed down, 1 if the server is not
+   * under pressure.
+   *
+   * @return the current backoff factor
+   */
+  public int getBackoffFactor() {
+    return backoffFactor;
+  }
+}
@@ -1,42 +1,127 @@
 package typeracer.game.timer;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import typeracer.game.TypeRacerGame;
+import typeracer.server.utils.ServerMetrics;
 
-/** This class sends periodical player state updates. */
+/**
+ * This class sends periodical player state updates. Instead of owning a thread, it schedules each
+ * tick on the shared {@link HashedWheelTimer} after the previous one has been sent. The timer only
+ * queues a tick as an event of the game's session, where the states are read and sent.
+ *
+ * <p>The time until the next tick adapts to the {@link RacePace} of the game, and is stretched by
+ * the {@link LoadMonitor}'s backoff factor while the server is under pressure. The current tick
+ * period of every game is published as a gauge in the {@link ServerMetrics}.
+ */
 public class PlayerStateNotifier extends Timer {
 
+  private static final Duration CLOSE_PERIOD = Duration.ofMillis(50);
+  private static final Duration ACTIVE_PERIOD = Duration.ofMillis(200);
+  private static final Duration IDLE_PERIOD = Duration.ofSeconds(1);
+  private static final LongAdder TICKS = ServerMetrics.getInstance().counter("state.ticks");
+
   private final TypeRacerGame game;
-  private ScheduledExecutorService executorService;
+  private final Executor sessionEvents;
+  private final HashedWheelTimer timer;
+  private final LoadMonitor loadMonitor;
+  private final ReentrantLock lock = new ReentrantLock();
+  private HashedWheelTimer.Timeout timeout;
+  private long nextTickTime;
+  private String tickPeriodGauge;
 
-  private PlayerStateNotifier(TypeRacerGame game) {
+  private PlayerStateNotifier(
+      TypeRacerGame game, Executor sessionEvents, HashedWheelTimer timer, LoadMonitor loadMonitor) {
     this.game = game;
+    this.sessionEvents = sessionEvents;
+    this.timer = timer;
+    this.loadMonitor = loadMonitor;
   }
 
   /**
    * Creates a new PlayerStateNotifier with the specified arguments.
    *
    * @param game the game this notifier belongs to
+   * @param sessionEvents the executor queuing events of the game's session
    * @return a new PlayerStateNotifier instance
    */
-  public static PlayerStateNotifier create(TypeRacerGame game) {
-    return new PlayerStateNotifier(game);
+  public static PlayerStateNotifier create(TypeRacerGame game, Executor sessionEvents) {
+    return new PlayerStateNotifier(
+        game, sessionEvents, HashedWheelTimer.getInstance(), LoadMonitor.getInstance());
   }
 
   @Override
   public void start() {
-    isRunning = true;
-    executorService = Executors.newSingleThreadScheduledExecutor();
-    executorService.scheduleAtFixedRate(game::broadcastPlayerStates, 0, 200, TimeUnit.MILLISECONDS);
+    lock.lock();
+    try {
+      if (isRunning) {
+        return;
+      }
+      isRunning = true;
+      loadMonitor.start();
+      tickPeriodGauge = "session." + game.getSessionId() + ".tick-period-ms";
+      nextTickTime = System.nanoTime();
+      timeout = timer.schedule(this::queueTick, Duration.ZERO);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void queueTick() {
+    sessionEvents.execute(this::tick);
+  }
+
+  private void tick() {
+    lock.lock();
+    try {
+      if (!isRunning) {
+        return; // Stopped while this tick was queued
+      }
+    } finally {
+      lock.unlock();
+    }
+    game.broadcastPlayerStates();
+    TICKS.increment();
+    Duration period = computePeriod();
+    lock.lock();
+    try {
+      if (isRunning) {
+        ServerMetrics.getInstance().setGauge(tickPeriodGauge, period.toMillis());
+        // Keep the rate steady, even if a tick was delayed
+        nextTickTime += period.toNanos();
+        Duration delay = Duration.ofNanos(Math.max(0, nextTickTime - System.nanoTime()));
+        timeout = timer.schedule(this::queueTick, delay);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Duration computePeriod() {
+    Duration period =
+        switch (game.getRacePace()) {
+          case CLOSE -> CLOSE_PERIOD;
+          case ACTIVE -> ACTIVE_PERIOD;
+          case IDLE -> IDLE_PERIOD;
+        };
+    Duration stretchedPeriod = period.multipliedBy(loadMonitor.getBackoffFactor());
+    // Backing off never makes updates rarer than those of an idle game
+    return stretchedPeriod.compareTo(IDLE_PERIOD) > 0 ? IDLE_PERIOD : stretchedPeriod;
   }
 
   @Override
   public void stop() {
-    if (isRunning) {
-      executorService.shutdownNow();
-      isRunning = false;
+    lock.lock();
+    try {
+      if (isRunning) {
+        timeout.cancel();
+        isRunning = false;
+        ServerMetrics.getInstance().removeGauge(tickPeriodGauge);
+      }
+    } finally {
+      lock.unlock();
     }
   }
 }
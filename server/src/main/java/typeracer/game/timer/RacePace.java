@@ -0,0 +1,11 @@
+package typeracer.game.timer;
+
+/** How eventful a race currently is, determining how often player states are broadcast. */
+public enum RacePace {
+  /** Players are typing and close to each other, so every update matters. */
+  CLOSE,
+  /** Players are typing, but the race is not close. */
+  ACTIVE,
+  /** Every remaining player is idle or has finished. */
+  IDLE
+}
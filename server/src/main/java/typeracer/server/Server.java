@@ -1,14 +1,36 @@
 package typeracer.server;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import typeracer.game.BroadcastSettings;
+import typeracer.game.ModelRegistry;
+import typeracer.game.TextPool;
+import typeracer.game.TextSource;
 import typeracer.server.connection.ConnectionManager;
+import typeracer.server.connection.ConnectionManager.ExecutionMode;
+import typeracer.server.session.SessionManager;
+import typeracer.server.utils.PinnedThreadMonitor;
+import typeracer.server.utils.ServerMetrics;
 
 /** Main class for the game server. */
 public class Server {
 
   private static final int DEFAULT_PORT = 4441;
+  private static final long BYTES_PER_MEGABYTE = 1L << 20;
+  private static final Duration PINNING_REPORT_THRESHOLD = Duration.ofMillis(20);
+
+  /** The transport used to serve client connections. */
+  private enum Transport {
+    /** One thread per client, each blocking on its socket. */
+    BLOCKING,
+    /** A small fixed pool of event loops multiplexing non-blocking channels. */
+    NIO
+  }
 
   /** The default constructor of this class. */
   public Server() {}
@@ -20,6 +42,10 @@ public class Server {
    */
   public static void main(String[] args) {
     int port = DEFAULT_PORT;
+    Transport transport = null;
+    ExecutionMode executionMode = null;
+    boolean reportPinning = false;
+    Duration metricsInterval = null;
     for (int i = 0; i < args.length; i++) {
       switch (args[i]) {
         case "--port":
@@ -39,6 +65,167 @@ public class Server {
             return;
           }
           break;
+        case "--transport":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the transport.");
+            return;
+          }
+          i++;
+          switch (args[i]) {
+            case "blocking" -> transport = Transport.BLOCKING;
+            case "nio" -> transport = Transport.NIO;
+            default -> {
+              printErrorMessage("Invalid transport: " + args[i]);
+              return;
+            }
+          }
+          break;
+        case "--event-loops":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the number of event loops.");
+            return;
+          }
+          try {
+            i++;
+            int numberOfEventLoops = Integer.parseInt(args[i]);
+            ConnectionManager.getInstance().setNumberOfEventLoops(numberOfEventLoops);
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid number of event loops: " + args[i]);
+            return;
+          }
+          break;
+        case "--session-loops":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the number of session loops.");
+            return;
+          }
+          try {
+            i++;
+            int numberOfSessionLoops = Integer.parseInt(args[i]);
+            SessionManager.getInstance().setNumberOfSessionLoops(numberOfSessionLoops);
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid number of session loops: " + args[i]);
+            return;
+          }
+          break;
+        case "--outbound-queue":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the outbound queue capacity.");
+            return;
+          }
+          try {
+            i++;
+            int outboundQueueCapacity = Integer.parseInt(args[i]);
+            ConnectionManager.getInstance().setOutboundQueueCapacity(outboundQueueCapacity);
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid outbound queue capacity: " + args[i]);
+            return;
+          }
+          break;
+        case "--max-write-delay":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the maximum write delay in milliseconds.");
+            return;
+          }
+          try {
+            i++;
+            Duration maxWriteDelay = Duration.ofMillis(Long.parseLong(args[i]));
+            ConnectionManager.getInstance().setMaxWriteDelay(maxWriteDelay);
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid maximum write delay: " + args[i]);
+            return;
+          }
+          break;
+        case "--metrics-interval":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the metrics interval in seconds.");
+            return;
+          }
+          try {
+            i++;
+            metricsInterval = Duration.ofSeconds(Long.parseLong(args[i]));
+            if (metricsInterval.isNegative() || metricsInterval.isZero()) {
+              throw new IllegalArgumentException();
+            }
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid metrics interval: " + args[i]);
+            return;
+          }
+          break;
+        case "--state-epsilon":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the state epsilon.");
+            return;
+          }
+          try {
+            i++;
+            BroadcastSettings.getInstance().setStateEpsilon(Double.parseDouble(args[i]));
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid state epsilon: " + args[i]);
+            return;
+          }
+          break;
+        case "--keyframe-interval":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the keyframe interval in ticks.");
+            return;
+          }
+          try {
+            i++;
+            BroadcastSettings.getInstance().setKeyframeInterval(Integer.parseInt(args[i]));
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid keyframe interval: " + args[i]);
+            return;
+          }
+          break;
+        case "--model-cache":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the model cache size in megabytes.");
+            return;
+          }
+          try {
+            i++;
+            long modelCacheSize = Long.parseLong(args[i]);
+            ModelRegistry.getInstance().setMaxBytes(modelCacheSize * BYTES_PER_MEGABYTE);
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid model cache size: " + args[i]);
+            return;
+          }
+          break;
+        case "--text-pool":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the number of texts to keep ready.");
+            return;
+          }
+          try {
+            i++;
+            TextPool.getInstance().setCapacity(Integer.parseInt(args[i]));
+          } catch (IllegalArgumentException e) {
+            printErrorMessage("Invalid number of texts to keep ready: " + args[i]);
+            return;
+          }
+          break;
+        case "--executor":
+          if (isLastArgument(i, args)) {
+            printErrorMessage("Please specify the executor.");
+            return;
+          }
+          i++;
+          switch (args[i]) {
+            case "platform" -> executionMode = ExecutionMode.PLATFORM;
+            case "virtual" -> executionMode = ExecutionMode.VIRTUAL;
+            default -> {
+              printErrorMessage("Invalid executor: " + args[i]);
+              return;
+            }
+          }
+          break;
+        case "--report-pinning":
+          reportPinning = true;
+          break;
+        case "--rolling-stats":
+          BroadcastSettings.getInstance().setRollingStatsEnabled(true);
+          break;
         case "--help":
         default:
           printHelpMessage();
@@ -46,12 +233,46 @@ public class Server {
       }
     }
 
-    try (ServerSocket serverSocket = new ServerSocket(port)) {
+    // Executors only apply to blocking client handlers, so choosing one implies that transport
+    if (transport == null) {
+      transport = executionMode == null ? Transport.NIO : Transport.BLOCKING;
+    }
+    if (transport == Transport.NIO && executionMode != null) {
+      printErrorMessage("The executor can only be chosen for the blocking transport.");
+      return;
+    }
+    if (executionMode != null) {
+      ConnectionManager.getInstance().setExecutionMode(executionMode);
+    }
+
+    if (metricsInterval != null) {
+      ServerMetrics.getInstance().startReporting(metricsInterval);
+    }
+    try {
+      TextSource.prepareDefaultCorpus();
+    } catch (IOException e) {
+      System.out.println("Could not load the default text generation model: " + e.getMessage());
+    }
+    PinnedThreadMonitor pinnedThreadMonitor =
+        reportPinning ? PinnedThreadMonitor.start(PINNING_REPORT_THRESHOLD) : null;
+    try (ServerSocket serverSocket = openServerSocket(port, transport)) {
       Server server = new Server();
       server.start(serverSocket);
     } catch (IOException e) {
       System.out.println("Connection lost. Shutting down: " + e.getMessage());
+    } finally {
+      if (pinnedThreadMonitor != null) {
+        pinnedThreadMonitor.close();
+      }
+    }
+  }
+
+  private static ServerSocket openServerSocket(int port, Transport transport) throws IOException {
+    if (transport == Transport.NIO) {
+      // The socket of a channel knows its channel, which makes start(...) choose the NIO path
+      return ServerSocketChannel.open().bind(new InetSocketAddress(port)).socket();
     }
+    return new ServerSocket(port);
   }
 
   private static boolean isLastArgument(int i, final String[] args) {
@@ -63,7 +284,12 @@ public class Server {
   }
 
   private static void printHelpMessage() {
-    System.out.println("java server [--port <int>] [--help]");
+    System.out.println(
+        "java server [--port <int>] [--transport <blocking|nio>] [--event-loops <int>]"
+            + " [--session-loops <int>] [--outbound-queue <int>] [--max-write-delay <ms>]"
+            + " [--executor <platform|virtual>] [--report-pinning] [--metrics-interval <seconds>]"
+            + " [--state-epsilon <double>] [--keyframe-interval <ticks>] [--rolling-stats]"
+            + " [--model-cache <megabytes>] [--text-pool <int>] [--help]");
   }
 
   private static void printErrorMessage(String error) {
@@ -72,15 +298,34 @@ public class Server {
 
   /**
    * The starting point of a Typeracer server. Listens for incoming connections and delegates
-   * handling of new clients to {@link typeracer.server.connection.ConnectionManager}.
+   * handling of new clients to {@link typeracer.server.connection.ConnectionManager}. If the socket
+   * belongs to a {@link ServerSocketChannel}, clients are served by non-blocking event loops,
+   * otherwise every client gets a thread of its own.
    *
    * @param socket the ServerSocket object listening for incoming connections
    * @throws IOException if an I/O error occurs while listening to the socket
    */
   public void start(ServerSocket socket) throws IOException {
+    ServerSocketChannel serverChannel = socket.getChannel();
+    if (serverChannel != null) {
+      startNonBlocking(serverChannel);
+      return;
+    }
     while (!socket.isClosed()) {
       Socket client = socket.accept();
       ConnectionManager.getInstance().handleClient(client);
     }
   }
+
+  private void startNonBlocking(ServerSocketChannel serverChannel) throws IOException {
+    while (serverChannel.isOpen()) {
+      SocketChannel client = serverChannel.accept();
+      try {
+        ConnectionManager.getInstance().handleClient(client);
+      } catch (IOException e) {
+        System.out.println("Client could not be registered: " + e.getMessage());
+        client.close();
+      }
+    }
+  }
 }
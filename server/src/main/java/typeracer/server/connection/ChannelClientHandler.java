@@ -0,0 +1,209 @@
+package typeracer.server.connection;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import typeracer.communication.messages.Message;
+import typeracer.server.message.MessageDispatcher;
+
+/**
+ * This class represents a client connected to the server over a non-blocking {@link
+ * SocketChannel}. All of its I/O is performed by the {@link EventLoop} it is bound to, which also
+ * acts as the writer draining the outbound queue. Frames are written with a single gathering write
+ * once the loop flushes, instead of one write per frame.
+ */
+final class ChannelClientHandler extends Connection {
+
+  private static final int MAX_LINE_LENGTH = 64 * 1024;
+  private static final int MAX_GATHERED_FRAMES = 64;
+
+  private final LineDecoder lineDecoder = new LineDecoder(MAX_LINE_LENGTH);
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private final SocketChannel channel;
+  private final int clientId;
+  private final EventLoop eventLoop;
+
+  private final ByteBuffer[] pendingWrites = new ByteBuffer[MAX_GATHERED_FRAMES];
+
+  private SelectionKey selectionKey;
+  private int pendingWritesStart;
+  private int pendingWritesEnd;
+  private boolean flushPending;
+
+  private ChannelClientHandler(
+      SocketChannel channel, int clientId, EventLoop eventLoop, int outboundQueueCapacity) {
+    super(clientId, outboundQueueCapacity);
+    this.channel = channel;
+    this.clientId = clientId;
+    this.eventLoop = eventLoop;
+  }
+
+  /**
+   * Creates a new ChannelClientHandler instance and switches the channel to non-blocking mode. The
+   * handler does not receive any data until it is {@link #register() registered}.
+   *
+   * @param channel the channel to which this handler should be bound
+   * @param clientId the unique id of the client/player
+   * @param eventLoop the event loop performing the I/O of this handler
+   * @param outboundQueueCapacity the maximum number of messages waiting to be sent to the client
+   * @return a new ChannelClientHandler instance
+   * @throws IOException if the channel could not be configured
+   */
+  static ChannelClientHandler create(
+      SocketChannel channel, int clientId, EventLoop eventLoop, int outboundQueueCapacity)
+      throws IOException {
+    channel.configureBlocking(false);
+    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    return new ChannelClientHandler(channel, clientId, eventLoop, outboundQueueCapacity);
+  }
+
+  /** Registers the channel with the selector of its event loop to start receiving messages. */
+  void register() {
+    eventLoop.execute(
+        () -> {
+          try {
+            selectionKey = channel.register(eventLoop.getSelector(), SelectionKey.OP_READ, this);
+            flush();
+          } catch (ClosedChannelException e) {
+            close();
+          }
+        });
+  }
+
+  /**
+   * Reads the available bytes from the channel and handles every completely received message. Must
+   * only be called from the event loop.
+   *
+   * @param readBuffer the buffer of the event loop to read into
+   */
+  void read(ByteBuffer readBuffer) {
+    try {
+      readBuffer.clear();
+      if (channel.read(readBuffer) < 0) {
+        close();
+        return;
+      }
+      readBuffer.flip();
+      lineDecoder.decode(readBuffer, this::handleLine);
+    } catch (IOException e) {
+      System.out.println("Client with ID " + clientId + " lost connection: " + e.getMessage());
+      close();
+    }
+  }
+
+  private void handleLine(String json) {
+    if (closed.get()) {
+      return;
+    }
+    try {
+      Message message = eventLoop.getMoshiAdapter().fromJson(json);
+      MessageDispatcher.getInstance().dispatch(message, getContext());
+    } catch (IOException | RuntimeException | AssertionError e) {
+      // Unlike a blocking handler, the loop must survive faulty clients, so only this one is closed
+      System.out.println("Client with ID " + clientId + " sent an invalid message: " + e);
+      close();
+    }
+  }
+
+  /**
+   * Writes as many queued messages to the channel as possible without blocking. If the socket's
+   * send buffer is full, the loop is asked to continue as soon as the channel is writable again.
+   * Must only be called from the event loop.
+   */
+  void flush() {
+    flushPending = false;
+    if (selectionKey == null || !selectionKey.isValid()) {
+      return;
+    }
+    int frames = 0;
+    int writes = 0;
+    try {
+      while (pendingWritesStart < pendingWritesEnd || fillPendingWrites()) {
+        channel.write(pendingWrites, pendingWritesStart, pendingWritesEnd - pendingWritesStart);
+        writes++;
+        while (pendingWritesStart < pendingWritesEnd
+            && !pendingWrites[pendingWritesStart].hasRemaining()) {
+          pendingWrites[pendingWritesStart++] = null;
+          frames++;
+        }
+        if (pendingWritesStart < pendingWritesEnd) {
+          selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+          return;
+        }
+      }
+      selectionKey.interestOps(SelectionKey.OP_READ);
+    } catch (IOException e) {
+      System.out.println("An error occurred trying to send the message: " + e.getMessage());
+      close();
+    } finally {
+      recordWrites(frames, writes);
+    }
+  }
+
+  /** Moves queued frames into the buffers of the next gathering write. */
+  private boolean fillPendingWrites() {
+    pendingWritesStart = 0;
+    pendingWritesEnd = 0;
+    byte[] frame;
+    while (pendingWritesEnd < pendingWrites.length && (frame = outboundQueue.poll()) != null) {
+      pendingWrites[pendingWritesEnd++] = ByteBuffer.wrap(frame);
+    }
+    return pendingWritesEnd > 0;
+  }
+
+  @Override
+  int getClientId() {
+    return clientId;
+  }
+
+  @Override
+  boolean isClosed() {
+    return closed.get();
+  }
+
+  @Override
+  void onFrameQueued() {
+    if (eventLoop.inEventLoop()) {
+      scheduleFlush();
+    } else if (flushScheduled.compareAndSet(false, true)) {
+      eventLoop.executeLater(
+          () -> {
+            flushScheduled.set(false);
+            scheduleFlush();
+          });
+    }
+  }
+
+  private void scheduleFlush() {
+    if (!flushPending) {
+      flushPending = true;
+      eventLoop.scheduleFlush(this);
+    }
+  }
+
+  @Override
+  void disconnectSlowConsumer() {
+    eventLoop.executeLater(this::close);
+  }
+
+  @Override
+  void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    ConnectionManager.getInstance().unhandleClient(clientId);
+    try {
+      channel.close();
+    } catch (IOException e) {
+      System.out.println("An error occurred trying to close the connection: " + e.getMessage());
+    }
+    outboundQueue.clear();
+    System.out.println("Connection with Client " + clientId + " closed");
+  }
+}
@@ -1,41 +1,54 @@
 package typeracer.server.connection;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import typeracer.communication.messages.Message;
 import typeracer.communication.messages.MoshiAdapter;
-import typeracer.server.message.MessageHandlerChain;
+import typeracer.server.message.MessageDispatcher;
 
 /**
- * This class represents a client connected to the server. It handles incoming and outgoing messages
- * and implements the Runnable interface to be scheduled in another thread.
+ * This class represents a client connected to the server over a blocking socket. It handles
+ * incoming and outgoing messages and implements the Runnable interface to be scheduled in another
+ * thread. Outgoing messages are written by a dedicated writer thread of the same kind, so a slow
+ * client never blocks the threads sending messages to it. The writer flushes everything it finds in
+ * the queue at once, e.g. all player states of a game tick.
  */
-public class ClientHandler implements Runnable {
+public class ClientHandler extends Connection implements Runnable {
 
   private static final Charset UTF_8 = StandardCharsets.UTF_8;
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
 
-  private final MessageHandlerChain messageHandlerChain = new MessageHandlerChain();
   private final MoshiAdapter moshiAdapter = new MoshiAdapter();
+  private final AtomicBoolean closed = new AtomicBoolean();
 
   private final Socket socket;
   private final int clientId;
+  private final long maxWriteDelayNanos;
 
   private BufferedReader bufferedReader;
-  private BufferedWriter bufferedWriter;
+  private OutputStream outputStream;
+  private volatile Thread writerThread;
 
-  private ClientHandler(Socket socket, int clientId) {
+  private ClientHandler(
+      Socket socket, int clientId, int outboundQueueCapacity, Duration maxWriteDelay) {
+    super(clientId, outboundQueueCapacity);
     this.socket = socket;
     this.clientId = clientId;
+    this.maxWriteDelayNanos = maxWriteDelay.toNanos();
 
     try {
       bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
-      bufferedWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), UTF_8));
+      outputStream = new BufferedOutputStream(socket.getOutputStream(), OUTPUT_BUFFER_SIZE);
     } catch (IOException e) {
       System.out.println("Input and output streams could not be created: " + e.getMessage());
       close();
@@ -47,19 +60,27 @@ public class ClientHandler implements Runnable {
    *
    * @param socket the socket to which this handler should be bound
    * @param clientId the unique id of the client/player
+   * @param outboundQueueCapacity the maximum number of messages waiting to be sent to the client
+   * @param maxWriteDelay the maximum time a message waits for others to be written together
    * @return a new ClientHandler instance
    */
-  public static ClientHandler create(Socket socket, int clientId) {
-    return new ClientHandler(socket, clientId);
+  public static ClientHandler create(
+      Socket socket, int clientId, int outboundQueueCapacity, Duration maxWriteDelay) {
+    return new ClientHandler(socket, clientId, outboundQueueCapacity, maxWriteDelay);
   }
 
   @Override
   public void run() {
+    // The writer runs on the same kind of thread as this handler, i.e. platform or virtual
+    Thread.Builder writerBuilder =
+        Thread.currentThread().isVirtual() ? Thread.ofVirtual() : Thread.ofPlatform();
+    writerThread = writerBuilder.name("client-writer-" + clientId).start(this::writeMessages);
+
     try {
       String json;
       while ((json = bufferedReader.readLine()) != null && socket.isConnected()) {
         Message message = moshiAdapter.fromJson(json);
-        handleMessage(message);
+        MessageDispatcher.getInstance().dispatch(message, getContext());
       }
     } catch (IOException e) {
       System.out.println("Client with ID " + clientId + " lost connection: " + e.getMessage());
@@ -68,43 +89,98 @@ public class ClientHandler implements Runnable {
     }
   }
 
-  private void handleMessage(Message message) {
-    messageHandlerChain.handleMessage(message, clientId);
-  }
-
-  /**
-   * Sends a message to the client.
-   *
-   * @param message the message to be sent
-   */
-  void sendMessage(Message message) {
+  /** Writes queued frames to the socket in batches until the connection is closed. */
+  private void writeMessages() {
+    List<byte[]> batch = new ArrayList<>();
     try {
-      String json = moshiAdapter.toJson(message);
-      bufferedWriter.write(json);
-      bufferedWriter.newLine();
-      bufferedWriter.flush();
+      while (!closed.get()) {
+        batch.add(outboundQueue.take());
+        collectBatch(batch, System.nanoTime() + maxWriteDelayNanos);
+        for (byte[] frame : batch) {
+          outputStream.write(frame);
+        }
+        outputStream.flush();
+        recordWrites(batch.size(), 1);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      // Interrupted by close() or disconnectSlowConsumer(), nothing left to do
     } catch (IOException e) {
       System.out.println("An error occurred trying to send the message: " + e.getMessage());
+    } finally {
       close();
     }
   }
 
-  /** Closes the connection to the client. */
+  /** Adds all queued frames to the batch and keeps waiting for more until the deadline. */
+  private void collectBatch(List<byte[]> batch, long deadline) throws InterruptedException {
+    outboundQueue.drainTo(batch);
+    long remainingNanos;
+    while ((remainingNanos = deadline - System.nanoTime()) > 0) {
+      byte[] frame = outboundQueue.poll(remainingNanos);
+      if (frame == null) {
+        return;
+      }
+      batch.add(frame);
+      outboundQueue.drainTo(batch);
+    }
+  }
+
+  @Override
+  int getClientId() {
+    return clientId;
+  }
+
+  @Override
+  boolean isClosed() {
+    return closed.get();
+  }
+
+  @Override
+  void onFrameQueued() {
+    // The writer thread is waiting on the queue already
+  }
+
+  @Override
+  void disconnectSlowConsumer() {
+    // An interrupt does not unblock a writer stuck in a socket write, closing the socket does. The
+    // reader or writer failing on the closed socket then closes the connection on its own thread.
+    try {
+      socket.close();
+    } catch (IOException e) {
+      System.out.println("An error occurred trying to close the connection: " + e.getMessage());
+    }
+    Thread writer = writerThread;
+    if (writer != null) {
+      writer.interrupt(); // In case the writer is waiting for the queue instead
+    }
+  }
+
+  @Override
   void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
     ConnectionManager.getInstance().unhandleClient(clientId);
+    Thread writer = writerThread;
+    if (writer != null && writer != Thread.currentThread()) {
+      writer.interrupt();
+    }
     try {
+      // Closing the socket first unblocks a reader waiting in readLine()
+      if (socket != null) {
+        socket.close();
+      }
       if (bufferedReader != null) {
         bufferedReader.close();
       }
-      if (bufferedWriter != null) {
-        bufferedWriter.close();
-      }
-      if (socket != null) {
-        socket.close();
+      if (outputStream != null) {
+        outputStream.close();
       }
     } catch (IOException e) {
       System.out.println("An error occurred trying to close the connection: " + e.getMessage());
     }
+    outboundQueue.clear();
     System.out.println("Connection with Client " + clientId + " closed");
   }
 }
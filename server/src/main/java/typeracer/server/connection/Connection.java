@@ -0,0 +1,173 @@
+package typeracer.server.connection;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import typeracer.communication.messages.Message;
+import typeracer.communication.messages.MoshiAdapter;
+import typeracer.server.session.ClientContext;
+import typeracer.server.utils.ServerMetrics;
+
+/**
+ * Base class for a client connected to the server, independent of the underlying transport. The
+ * {@link ConnectionManager} only talks to connections through this class, so blocking sockets and
+ * non-blocking channels can be served side by side.
+ *
+ * <p>Sending a message never blocks the caller: the message is encoded and appended to the
+ * connection's {@link OutboundQueue}, which a writer drains. A client whose queue overflows cannot
+ * keep up with the game and is disconnected. Writers coalesce all frames queued at the same time
+ * into a single write, waiting at most a configurable delay for further frames to arrive.
+ */
+abstract class Connection {
+
+  private static final Charset UTF_8 = StandardCharsets.UTF_8;
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF_8);
+  private static final MoshiAdapter MOSHI_ADAPTER = new MoshiAdapter();
+  private static final LongAdder FRAMES_WRITTEN =
+      ServerMetrics.getInstance().counter("outbound.frames");
+  private static final LongAdder WRITES = ServerMetrics.getInstance().counter("outbound.writes");
+  private static final LongAdder WRITES_SAVED =
+      ServerMetrics.getInstance().counter("outbound.writes-saved");
+
+  /** The frames waiting to be written to the client. */
+  protected final OutboundQueue outboundQueue;
+
+  private final ClientContext context;
+  private volatile Set<String> capabilities = Set.of();
+
+  /**
+   * Constructs a new Connection.
+   *
+   * @param clientId the unique id of the client
+   * @param outboundQueueCapacity the maximum number of frames waiting to be written
+   */
+  Connection(int clientId, int outboundQueueCapacity) {
+    this.context = new ClientContext(clientId);
+    this.outboundQueue = new OutboundQueue(outboundQueueCapacity);
+  }
+
+  /**
+   * Encodes a message as a frame of the wire protocol, i.e. a line of JSON. Frames are never
+   * modified after encoding, so one frame may be queued for several connections.
+   *
+   * @param message the message to be encoded
+   * @return the encoded frame
+   */
+  static byte[] encodeFrame(Message message) {
+    byte[] json = MOSHI_ADAPTER.toJson(message).getBytes(UTF_8);
+    byte[] frame = new byte[json.length + LINE_SEPARATOR.length];
+    System.arraycopy(json, 0, frame, 0, json.length);
+    System.arraycopy(LINE_SEPARATOR, 0, frame, json.length, LINE_SEPARATOR.length);
+    return frame;
+  }
+
+  /**
+   * Queues a message to be sent to the client. Does not block.
+   *
+   * @param message the message to be sent
+   */
+  void sendMessage(Message message) {
+    if (!isClosed()) {
+      sendFrame(encodeFrame(message));
+    }
+  }
+
+  /**
+   * Queues an encoded frame to be sent to the client. Does not block. If the queue is full, the
+   * client is disconnected.
+   *
+   * @param frame the encoded frame
+   */
+  void sendFrame(byte[] frame) {
+    if (isClosed()) {
+      return;
+    }
+    if (outboundQueue.offer(frame)) {
+      onFrameQueued();
+    } else {
+      System.out.println("Client with ID " + getClientId() + " is too slow, disconnecting");
+      outboundQueue.clear();
+      disconnectSlowConsumer();
+    }
+  }
+
+  /**
+   * Records a batch of frames handed to the operating system, so the effect of coalescing shows in
+   * the {@link ServerMetrics}.
+   *
+   * @param frames the number of frames written
+   * @param writes the number of write calls it took
+   */
+  static void recordWrites(int frames, int writes) {
+    FRAMES_WRITTEN.add(frames);
+    WRITES.add(writes);
+    if (frames > writes) {
+      WRITES_SAVED.add(frames - writes);
+    }
+  }
+
+  /**
+   * Returns the number of frames waiting to be written to the client.
+   *
+   * @return the number of queued frames
+   */
+  int getQueuedFrames() {
+    return outboundQueue.size();
+  }
+
+  /**
+   * Stores the capabilities negotiated with the client during the handshake.
+   *
+   * @param capabilities the negotiated capabilities
+   */
+  void setCapabilities(Collection<String> capabilities) {
+    this.capabilities = Set.copyOf(capabilities);
+  }
+
+  /**
+   * Returns whether the given capability has been negotiated with the client.
+   *
+   * @param capability the capability, one of {@link typeracer.communication.Capabilities}
+   * @return <code>true</code> if the client supports the capability, <code>false</code> otherwise
+   */
+  boolean hasCapability(String capability) {
+    return capabilities.contains(capability);
+  }
+
+  /**
+   * Returns the unique id of the connected client.
+   *
+   * @return the unique id of the client
+   */
+  abstract int getClientId();
+
+  /**
+   * Returns the session state of the client, which is passed along with every received message.
+   *
+   * @return the context of the client
+   */
+  ClientContext getContext() {
+    return context;
+  }
+
+  /**
+   * Returns whether the connection has been closed.
+   *
+   * @return <code>true</code> if the connection is closed, <code>false</code> otherwise
+   */
+  abstract boolean isClosed();
+
+  /** Notifies the writer that a frame has been queued. */
+  abstract void onFrameQueued();
+
+  /**
+   * Closes the connection after the outbound queue overflowed. As this may be called while the
+   * caller holds locks of sessions or games, implementations must close asynchronously.
+   */
+  abstract void disconnectSlowConsumer();
+
+  /** Closes the connection to the client. */
+  abstract void close();
+}
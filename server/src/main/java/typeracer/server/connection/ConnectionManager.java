@@ -1,12 +1,21 @@
 package typeracer.server.connection;
 
+import java.io.IOException;
 import java.net.Socket;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+import typeracer.communication.Capabilities;
 import typeracer.communication.messages.Message;
 import typeracer.communication.messages.server.PlayerLeftNotification;
+import typeracer.server.session.ClientContext;
 import typeracer.server.session.Session;
 import typeracer.server.session.SessionManager;
+import typeracer.server.utils.ConcurrentIntObjectMap;
 import typeracer.server.utils.IdentifierGenerator;
 
 /** This singleton class is responsible for managing clients connecting to the server. */
@@ -22,26 +31,152 @@ public final class ConnectionManager {
     FAIL
   }
 
+  /** The kind of threads blocking client handlers are run on. */
+  public enum ExecutionMode {
+    /** Every client handler runs on a platform thread of its own. */
+    PLATFORM,
+    /** Every client handler runs on a virtual thread of its own. */
+    VIRTUAL
+  }
+
+  private static final int DEFAULT_OUTBOUND_QUEUE_CAPACITY = 1024;
+  private static final Duration DEFAULT_MAX_WRITE_DELAY = Duration.ofMillis(1);
+  private static final Set<String> SUPPORTED_CAPABILITIES =
+      Set.of(Capabilities.RACE_SNAPSHOT, Capabilities.CHARACTER_BATCH);
   private static final ConnectionManager INSTANCE = new ConnectionManager();
 
-  private final Map<Integer, ClientHandler> clientHandlerById = new ConcurrentHashMap<>();
-  private final Map<Integer, String> playerNameById = new ConcurrentHashMap<>();
+  private final ConcurrentIntObjectMap<Connection> clientHandlerById =
+      new ConcurrentIntObjectMap<>();
+  private final ConcurrentIntObjectMap<String> playerNameById = new ConcurrentIntObjectMap<>();
   private final IdentifierGenerator identifierGenerator = new IdentifierGenerator();
+  // A lock instead of synchronized methods, as monitors pin virtual threads to their carrier
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private ThreadFactory clientThreadFactory = createThreadFactory(ExecutionMode.PLATFORM);
+  private int outboundQueueCapacity = DEFAULT_OUTBOUND_QUEUE_CAPACITY;
+  private Duration maxWriteDelay = DEFAULT_MAX_WRITE_DELAY;
+  private int numberOfEventLoops = Runtime.getRuntime().availableProcessors();
+  private EventLoopGroup eventLoopGroup;
 
   private ConnectionManager() {}
 
+  private static ThreadFactory createThreadFactory(ExecutionMode executionMode) {
+    return switch (executionMode) {
+      case PLATFORM -> Thread.ofPlatform().name("client-handler-", 0).factory();
+      case VIRTUAL -> Thread.ofVirtual().name("client-handler-", 0).factory();
+    };
+  }
+
   /**
    * Handles a client connection by assigning a unique id to the client and delegating it to another
-   * thread.
+   * thread. Depending on the {@link ExecutionMode}, this is either a platform or a virtual thread.
    *
    * @param socket the socket representing the client's connection to the server
    */
-  public synchronized void handleClient(Socket socket) {
-    int id = identifierGenerator.generateId();
-    ClientHandler clientHandler = ClientHandler.create(socket, id);
-    clientHandlerById.put(id, clientHandler);
-    Thread thread = new Thread(clientHandler);
-    thread.start();
+  public void handleClient(Socket socket) {
+    lock.lock();
+    try {
+      int id = identifierGenerator.generateId();
+      ClientHandler clientHandler =
+          ClientHandler.create(socket, id, outboundQueueCapacity, maxWriteDelay);
+      clientHandlerById.put(id, clientHandler);
+      Thread thread = clientThreadFactory.newThread(clientHandler);
+      thread.start();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Handles a non-blocking client connection by assigning a unique id to the client and registering
+   * it with one of the event loops. The loops are started on the first connection.
+   *
+   * @param channel the channel representing the client's connection to the server
+   * @throws IOException if the channel could not be registered
+   */
+  public void handleClient(SocketChannel channel) throws IOException {
+    lock.lock();
+    try {
+      if (eventLoopGroup == null) {
+        eventLoopGroup = EventLoopGroup.create(numberOfEventLoops, maxWriteDelay);
+      }
+      int id = identifierGenerator.generateId();
+      ChannelClientHandler clientHandler =
+          ChannelClientHandler.create(channel, id, eventLoopGroup.next(), outboundQueueCapacity);
+      clientHandlerById.put(id, clientHandler);
+      clientHandler.register();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the kind of threads new blocking client handlers are run on.
+   *
+   * @param executionMode the execution mode of client handlers
+   */
+  public void setExecutionMode(ExecutionMode executionMode) {
+    lock.lock();
+    try {
+      clientThreadFactory = createThreadFactory(executionMode);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the maximum number of messages waiting to be sent to a single client. Clients exceeding
+   * it are considered too slow and disconnected. Only affects clients connecting afterward.
+   *
+   * @param outboundQueueCapacity the capacity of each client's outbound queue, must be positive
+   */
+  public void setOutboundQueueCapacity(int outboundQueueCapacity) {
+    if (outboundQueueCapacity <= 0) {
+      throw new IllegalArgumentException("The outbound queue capacity must be positive");
+    }
+    lock.lock();
+    try {
+      this.outboundQueueCapacity = outboundQueueCapacity;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets how long a queued message may wait for further messages to the same client, so they are
+   * written together. Zero still writes everything queued at the same time at once. Has no effect
+   * on event loops once the first non-blocking client has been handled.
+   *
+   * @param maxWriteDelay the maximum delay of a queued message, must not be negative
+   */
+  public void setMaxWriteDelay(Duration maxWriteDelay) {
+    if (maxWriteDelay.isNegative()) {
+      throw new IllegalArgumentException("The maximum write delay must not be negative");
+    }
+    lock.lock();
+    try {
+      this.maxWriteDelay = maxWriteDelay;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the number of event loops serving non-blocking connections. Has no effect once the first
+   * non-blocking client has been handled.
+   *
+   * @param numberOfEventLoops the number of event loop threads, must be positive
+   */
+  public void setNumberOfEventLoops(int numberOfEventLoops) {
+    if (numberOfEventLoops <= 0) {
+      throw new IllegalArgumentException("The number of event loops must be positive");
+    }
+    lock.lock();
+    try {
+      this.numberOfEventLoops = numberOfEventLoops;
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -50,15 +185,31 @@ public final class ConnectionManager {
    *
    * @param clientId the unique id of the client
    */
-  public synchronized void unhandleClient(int clientId) {
-    clientHandlerById.remove(clientId);
-    playerNameById.remove(clientId);
+  public void unhandleClient(int clientId) {
+    lock.lock();
+    try {
+      Connection clientHandler = clientHandlerById.remove(clientId);
+      playerNameById.remove(clientId);
+      if (clientHandler == null) {
+        return;
+      }
 
-    Session session = SessionManager.getInstance().getSessionByClientId(clientId);
-    if (session != null) {
+      ClientContext client = clientHandler.getContext();
+      Session session = client.getSession();
+      if (session != null) {
+        session.execute(() -> leaveSession(session, client));
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void leaveSession(Session session, ClientContext client) {
+    int clientId = client.getClientId();
+    if (session.containsPlayer(clientId)) {
       session.broadcastMessage(
           new PlayerLeftNotification(session.numberOfConnectedClients(), clientId));
-      SessionManager.getInstance().leaveSession(clientId);
+      SessionManager.getInstance().leaveSession(client, session.getId());
     }
   }
 
@@ -67,33 +218,107 @@ public final class ConnectionManager {
    *
    * @param clientId the unique id of the client
    */
-  public synchronized void disconnectClient(int clientId) {
-    ClientHandler clientHandler = clientHandlerById.getOrDefault(clientId, null);
-    if (clientHandler != null) {
-      clientHandler.close();
+  public void disconnectClient(int clientId) {
+    lock.lock();
+    try {
+      Connection clientHandler = clientHandlerById.get(clientId);
+      if (clientHandler != null) {
+        clientHandler.close();
+      }
+    } finally {
+      lock.unlock();
     }
   }
 
   /**
-   * Sends a message to the specified client. If the client does not exist, nothing happens.
+   * Sends a message to the specified client. If the client does not exist, nothing happens. The
+   * message is only queued, so this never blocks on the client's network connection.
    *
    * @param message the message to be sent
    * @param clientId the unique id of the client
    */
   public void sendMessage(Message message, int clientId) {
-    ClientHandler clientHandler = clientHandlerById.getOrDefault(clientId, null);
+    Connection clientHandler = clientHandlerById.get(clientId);
     if (clientHandler != null) {
       clientHandler.sendMessage(message);
     }
   }
 
+  /**
+   * Sends a message to all specified clients. The message is encoded only once and the same frame
+   * is queued for every client, so the cost of encoding does not grow with the number of
+   * recipients. Clients that do not exist are skipped.
+   *
+   * @param message the message to be sent
+   * @param clientIds the unique ids of the clients
+   */
+  public void broadcastMessage(Message message, Collection<Integer> clientIds) {
+    byte[] frame = null;
+    for (int clientId : clientIds) {
+      Connection clientHandler = clientHandlerById.get(clientId);
+      if (clientHandler == null || clientHandler.isClosed()) {
+        continue;
+      }
+      if (frame == null) {
+        frame = Connection.encodeFrame(message);
+      }
+      clientHandler.sendFrame(frame);
+    }
+  }
+
+  /**
+   * Agrees on the capabilities the client requested and the server supports, and remembers them
+   * for the rest of the connection.
+   *
+   * @param clientId the unique id of the client
+   * @param requestedCapabilities the capabilities requested by the client
+   * @return the requested capabilities the server supports, in the order they were requested
+   */
+  public List<String> negotiateCapabilities(int clientId, List<String> requestedCapabilities) {
+    List<String> capabilities =
+        requestedCapabilities.stream().filter(SUPPORTED_CAPABILITIES::contains).distinct().toList();
+    Connection clientHandler = clientHandlerById.get(clientId);
+    if (clientHandler != null) {
+      clientHandler.setCapabilities(capabilities);
+    }
+    return capabilities;
+  }
+
+  /**
+   * Returns whether the given capability has been negotiated with the specified client.
+   *
+   * @param clientId the unique id of the client
+   * @param capability the capability, one of {@link Capabilities}
+   * @return <code>true</code> if the client supports the capability, <code>false</code> otherwise
+   */
+  public boolean hasCapability(int clientId, String capability) {
+    Connection clientHandler = clientHandlerById.get(clientId);
+    return clientHandler != null && clientHandler.hasCapability(capability);
+  }
+
+  /**
+   * Returns the average number of messages waiting to be sent per connected client, which grows
+   * when the server produces messages faster than the network carries them away.
+   *
+   * @return the average outbound queue depth, 0 if no client is connected
+   */
+  public double getAverageOutboundQueueDepth() {
+    long queuedFrames = 0;
+    int connections = 0;
+    for (Connection clientHandler : clientHandlerById.values()) {
+      queuedFrames += clientHandler.getQueuedFrames();
+      connections++;
+    }
+    return connections == 0 ? 0 : (double) queuedFrames / connections;
+  }
+
   /**
    * Returns the name of the specified player, or 'Guest' if no such player exists.
    *
    * @param clientId the unique id of the client
    * @return the player's name
    */
-  public synchronized String getPlayerName(int clientId) {
+  public String getPlayerName(int clientId) {
     return playerNameById.getOrDefault(clientId, "Guest");
   }
 
@@ -105,7 +330,7 @@ public final class ConnectionManager {
    * @return the operation status of this method. {@link OperationStatus#SUCCESS} if the action was
    *     successful. Otherwise, a corresponding error status.
    */
-  public synchronized OperationStatus handlePlayerName(int clientId, String playerName) {
+  public OperationStatus handlePlayerName(int clientId, String playerName) {
     if (playerName == null || playerName.isBlank() || playerName.isEmpty()) {
       return OperationStatus.INVALID_USERNAME;
     }
@@ -118,7 +343,7 @@ public final class ConnectionManager {
    *
    * @return the singleton instance of this class
    */
-  public static synchronized ConnectionManager getInstance() {
+  public static ConnectionManager getInstance() {
     return INSTANCE;
   }
 }
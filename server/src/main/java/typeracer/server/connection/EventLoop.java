@@ -0,0 +1,202 @@
+package typeracer.server.connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import typeracer.communication.messages.MoshiAdapter;
+
+/**
+ * A single-threaded event loop multiplexing many non-blocking client channels with one {@link
+ * Selector}. Every {@link ChannelClientHandler} is bound to exactly one loop, which performs all
+ * reads, writes and message dispatching for it.
+ *
+ * <p>Handlers with queued frames are not flushed right away but collected, and flushed together at
+ * the end of the loop iteration in which the maximum write delay elapses. Everything a handler
+ * receives until then goes out in one write.
+ */
+final class EventLoop implements Runnable {
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private final MoshiAdapter moshiAdapter = new MoshiAdapter();
+  private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final Queue<ChannelClientHandler> pendingFlushes = new ArrayDeque<>();
+
+  private final Selector selector;
+  private final Thread thread;
+  private final long maxWriteDelayNanos;
+  private volatile boolean running = true;
+  private long flushDeadline;
+
+  private EventLoop(String name, Duration maxWriteDelay) throws IOException {
+    this.selector = Selector.open();
+    this.thread = new Thread(this, name);
+    this.maxWriteDelayNanos = maxWriteDelay.toNanos();
+  }
+
+  /**
+   * Creates and starts a new EventLoop.
+   *
+   * @param name the name of the loop's thread
+   * @param maxWriteDelay the maximum time a queued frame waits for others to be written together
+   * @return a new running EventLoop instance
+   * @throws IOException if the selector could not be opened
+   */
+  static EventLoop start(String name, Duration maxWriteDelay) throws IOException {
+    EventLoop eventLoop = new EventLoop(name, maxWriteDelay);
+    eventLoop.thread.start();
+    return eventLoop;
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      try {
+        select();
+      } catch (IOException e) {
+        System.out.println("Event loop " + thread.getName() + " failed: " + e.getMessage());
+        break;
+      }
+      runTasks();
+      processSelectedKeys();
+      flushIfDue();
+    }
+    closeAll();
+  }
+
+  /** Waits for ready channels or tasks, but no longer than until pending flushes are due. */
+  private void select() throws IOException {
+    if (pendingFlushes.isEmpty()) {
+      selector.select();
+      return;
+    }
+    long remainingNanos = flushDeadline - System.nanoTime();
+    if (remainingNanos <= 0) {
+      selector.selectNow();
+    } else {
+      selector.select(Math.max(1, remainingNanos / 1_000_000));
+    }
+  }
+
+  private void flushIfDue() {
+    if (pendingFlushes.isEmpty() || System.nanoTime() - flushDeadline < 0) {
+      return;
+    }
+    ChannelClientHandler handler;
+    while ((handler = pendingFlushes.poll()) != null) {
+      handler.flush();
+    }
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private void processSelectedKeys() {
+    Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+    while (iterator.hasNext()) {
+      SelectionKey key = iterator.next();
+      iterator.remove();
+      ChannelClientHandler handler = (ChannelClientHandler) key.attachment();
+      if (key.isValid() && key.isReadable()) {
+        handler.read(readBuffer);
+      }
+      if (key.isValid() && key.isWritable()) {
+        handler.flush();
+      }
+    }
+  }
+
+  private void closeAll() {
+    for (SelectionKey key : List.copyOf(selector.keys())) {
+      ((ChannelClientHandler) key.attachment()).close();
+    }
+    try {
+      selector.close();
+    } catch (IOException e) {
+      System.out.println("An error occurred trying to close the selector: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Runs the given task on this loop's thread. If called from the loop itself, the task runs
+   * immediately.
+   *
+   * @param task the task to run
+   */
+  void execute(Runnable task) {
+    if (inEventLoop()) {
+      task.run();
+    } else {
+      executeLater(task);
+    }
+  }
+
+  /**
+   * Runs the given task on this loop's thread after the current iteration, even if called from the
+   * loop itself.
+   *
+   * @param task the task to run
+   */
+  void executeLater(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  /**
+   * Flushes the given handler together with all others once the maximum write delay has passed.
+   * Must only be called from the loop's thread.
+   *
+   * @param handler the handler with newly queued frames
+   */
+  void scheduleFlush(ChannelClientHandler handler) {
+    if (pendingFlushes.isEmpty()) {
+      flushDeadline = System.nanoTime() + maxWriteDelayNanos;
+    }
+    pendingFlushes.add(handler);
+  }
+
+  /**
+   * Returns whether the calling thread is this loop's thread.
+   *
+   * @return <code>true</code> if called from this loop, <code>false</code> otherwise
+   */
+  boolean inEventLoop() {
+    return Thread.currentThread() == thread;
+  }
+
+  /**
+   * Returns the selector of this loop. Must only be used from the loop's thread.
+   *
+   * @return the selector of this loop
+   */
+  Selector getSelector() {
+    return selector;
+  }
+
+  /**
+   * Returns the adapter used to convert messages of this loop's channels.
+   *
+   * @return the moshi adapter
+   */
+  MoshiAdapter getMoshiAdapter() {
+    return moshiAdapter;
+  }
+
+  /** Stops this loop and closes all of its channels. */
+  void shutdown() {
+    running = false;
+    selector.wakeup();
+  }
+}
@@ -0,0 +1,51 @@
+package typeracer.server.connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A fixed pool of {@link EventLoop}s. New channels are assigned to the loops round-robin. */
+final class EventLoopGroup {
+
+  private final EventLoop[] eventLoops;
+  private final AtomicInteger nextIndex = new AtomicInteger();
+
+  private EventLoopGroup(EventLoop[] eventLoops) {
+    this.eventLoops = eventLoops;
+  }
+
+  /**
+   * Creates a new EventLoopGroup and starts all of its loops.
+   *
+   * @param numberOfLoops the number of event loops, must be positive
+   * @param maxWriteDelay the maximum time a queued frame waits for others to be written together
+   * @return a new EventLoopGroup instance
+   * @throws IOException if a loop could not be started
+   */
+  static EventLoopGroup create(int numberOfLoops, Duration maxWriteDelay) throws IOException {
+    if (numberOfLoops <= 0) {
+      throw new IllegalArgumentException("The number of event loops must be positive");
+    }
+    EventLoop[] eventLoops = new EventLoop[numberOfLoops];
+    for (int i = 0; i < numberOfLoops; i++) {
+      eventLoops[i] = EventLoop.start("event-loop-" + i, maxWriteDelay);
+    }
+    return new EventLoopGroup(eventLoops);
+  }
+
+  /**
+   * Returns the loop the next channel should be assigned to.
+   *
+   * @return the next event loop
+   */
+  EventLoop next() {
+    return eventLoops[Math.floorMod(nextIndex.getAndIncrement(), eventLoops.length)];
+  }
+
+  /** Stops all loops of this group. */
+  void shutdown() {
+    for (EventLoop eventLoop : eventLoops) {
+      eventLoop.shutdown();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package typeracer.server.connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits a stream of UTF-8 encoded bytes into lines, just like {@link
+ * java.io.BufferedReader#readLine()} does for the blocking transport. Bytes of an incomplete line
+ * are kept until the rest of the line arrives, so frames may be split across any number of reads.
+ */
+final class LineDecoder {
+
+  private static final byte LINE_FEED = '\n';
+  private static final byte CARRIAGE_RETURN = '\r';
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final int maxLineLength;
+  private byte[] pending = new byte[0];
+  private int pendingLength = 0;
+
+  /**
+   * Constructs a new LineDecoder.
+   *
+   * @param maxLineLength the maximum number of bytes a single line may consist of
+   */
+  LineDecoder(int maxLineLength) {
+    this.maxLineLength = maxLineLength;
+  }
+
+  /**
+   * Decodes all complete lines contained in the readable bytes of the buffer and passes them to the
+   * consumer. Line terminators are not included. The buffer is fully consumed afterward.
+   *
+   * @param buffer the buffer in read mode holding the received bytes
+   * @param lineConsumer the consumer of every complete line
+   * @throws IOException if a line exceeds the maximum line length
+   */
+  void decode(ByteBuffer buffer, Consumer<String> lineConsumer) throws IOException {
+    while (buffer.hasRemaining()) {
+      int start = buffer.position();
+      int end = indexOfLineFeed(buffer, start, buffer.limit());
+      if (end < 0) {
+        append(buffer, start, buffer.limit());
+        buffer.position(buffer.limit());
+        return;
+      }
+      append(buffer, start, end);
+      buffer.position(end + 1);
+      lineConsumer.accept(takeLine());
+    }
+  }
+
+  private static int indexOfLineFeed(ByteBuffer buffer, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) == LINE_FEED) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void append(ByteBuffer buffer, int from, int to) throws IOException {
+    int length = to - from;
+    if (pendingLength + length > maxLineLength) {
+      throw new IOException("Line exceeds the maximum length of " + maxLineLength + " bytes");
+    }
+    if (pendingLength + length > pending.length) {
+      int capacity = Math.max(INITIAL_CAPACITY, pending.length * 2);
+      pending = Arrays.copyOf(pending, Math.max(capacity, pendingLength + length));
+    }
+    buffer.get(from, pending, pendingLength, length);
+    pendingLength += length;
+  }
+
+  private String takeLine() {
+    int length = pendingLength;
+    if (length > 0 && pending[length - 1] == CARRIAGE_RETURN) {
+      length--;
+    }
+    String line = new String(pending, 0, length, StandardCharsets.UTF_8);
+    pendingLength = 0;
+    return line;
+  }
+}
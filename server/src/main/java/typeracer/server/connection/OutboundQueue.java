@@ -0,0 +1,89 @@
+package typeracer.server.connection;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded queue of encoded frames waiting to be written to a single client. Any thread may add
+ * frames without blocking, while only the connection's writer removes them. If the client does not
+ * read fast enough, the queue runs full and further frames are rejected.
+ */
+final class OutboundQueue {
+
+  private final BlockingQueue<byte[]> frames;
+
+  /**
+   * Constructs a new OutboundQueue.
+   *
+   * @param capacity the maximum number of frames waiting to be written
+   */
+  OutboundQueue(int capacity) {
+    this.frames = new LinkedBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Adds a frame to the end of the queue, unless the queue is full.
+   *
+   * @param frame the encoded frame
+   * @return <code>true</code> if the frame was added, <code>false</code> if the queue is full
+   */
+  boolean offer(byte[] frame) {
+    return frames.offer(frame);
+  }
+
+  /**
+   * Removes the first frame of the queue, if any.
+   *
+   * @return the first frame, or null if the queue is empty
+   */
+  byte[] poll() {
+    return frames.poll();
+  }
+
+  /**
+   * Removes the first frame of the queue, waiting up to the given time for one to become available.
+   *
+   * @param timeoutNanos the maximum time to wait in nanoseconds
+   * @return the first frame, or null if none became available in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  byte[] poll(long timeoutNanos) throws InterruptedException {
+    return frames.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Removes the first frame of the queue, waiting until one is available.
+   *
+   * @return the first frame
+   * @throws InterruptedException if interrupted while waiting
+   */
+  byte[] take() throws InterruptedException {
+    return frames.take();
+  }
+
+  /**
+   * Removes all queued frames and adds them to the given collection, preserving their order.
+   *
+   * @param batch the collection to add the frames to
+   * @return the number of frames removed
+   */
+  int drainTo(Collection<? super byte[]> batch) {
+    return frames.drainTo(batch);
+  }
+
+  /**
+   * Returns the number of frames waiting to be written.
+   *
+   * @return the number of queued frames
+   */
+  int size() {
+    return frames.size();
+  }
+
+  /** Discards all queued frames. */
+  void clear() {
+    frames.clear();
+  }
+}
@@ -0,0 +1,97 @@
+package typeracer.server.message;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import typeracer.communication.messages.Message;
+import typeracer.communication.messages.client.CharacterBatchRequest;
+import typeracer.communication.messages.client.CharacterRequest;
+import typeracer.communication.messages.client.CreateSessionRequest;
+import typeracer.communication.messages.client.HandshakeRequest;
+import typeracer.communication.messages.client.JoinSessionRequest;
+import typeracer.communication.messages.client.LeaveSessionRequest;
+import typeracer.communication.messages.client.ReadyRequest;
+import typeracer.server.message.handlers.CharacterBatchRequestHandler;
+import typeracer.server.message.handlers.CharacterRequestHandler;
+import typeracer.server.message.handlers.CreateSessionRequestHandler;
+import typeracer.server.message.handlers.HandshakeRequestHandler;
+import typeracer.server.message.handlers.JoinSessionRequestHandler;
+import typeracer.server.message.handlers.LeaveSessionRequestHandler;
+import typeracer.server.message.handlers.ReadyRequestHandler;
+import typeracer.server.session.ClientContext;
+
+/**
+ * Dispatches incoming messages to the {@link MessageHandler} registered for their class. The
+ * handler of a class is looked up once and then cached in a {@link ClassValue}, so dispatching
+ * takes constant time no matter how many message types there are. A single dispatcher is shared by
+ * all connections.
+ */
+public final class MessageDispatcher {
+
+  private static final MessageDispatcher INSTANCE = createDefault();
+
+  private final Map<Class<?>, MessageHandler<?>> handlers = new ConcurrentHashMap<>();
+  private final ClassValue<MessageHandler<?>> handlerCache =
+      new ClassValue<>() {
+        @Override
+        protected MessageHandler<?> computeValue(Class<?> type) {
+          return handlers.get(type);
+        }
+      };
+
+  /** Constructs a new MessageDispatcher without any handlers. */
+  public MessageDispatcher() {}
+
+  private static MessageDispatcher createDefault() {
+    MessageDispatcher dispatcher = new MessageDispatcher();
+    dispatcher.register(CharacterRequest.class, new CharacterRequestHandler());
+    dispatcher.register(CharacterBatchRequest.class, new CharacterBatchRequestHandler());
+    dispatcher.register(HandshakeRequest.class, new HandshakeRequestHandler());
+    dispatcher.register(CreateSessionRequest.class, new CreateSessionRequestHandler());
+    dispatcher.register(JoinSessionRequest.class, new JoinSessionRequestHandler());
+    dispatcher.register(ReadyRequest.class, new ReadyRequestHandler());
+    dispatcher.register(LeaveSessionRequest.class, new LeaveSessionRequestHandler());
+    return dispatcher;
+  }
+
+  /**
+   * Returns the dispatcher shared by all connections, with a handler registered for every message
+   * a client may send.
+   *
+   * @return the singleton instance of MessageDispatcher
+   */
+  public static MessageDispatcher getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers the handler for messages of the given class, replacing any handler registered before.
+   * Messages of subclasses are not passed to the handler.
+   *
+   * @param type the class of messages to handle
+   * @param handler the handler for messages of the class
+   * @param <T> the type of message handled
+   */
+  public <T extends Message> void register(Class<T> type, MessageHandler<? super T> handler) {
+    handlers.put(type, handler);
+    handlerCache.remove(type);
+  }
+
+  /**
+   * Passes the message to the handler registered for its class. Messages without a handler are
+   * ignored.
+   *
+   * @param message the message to handle
+   * @param client the context of the client that sent the message
+   */
+  @SuppressWarnings("unchecked")
+  public void dispatch(Message message, ClientContext client) {
+    if (message == null) {
+      return;
+    }
+    MessageHandler<Message> handler =
+        (MessageHandler<Message>) handlerCache.get(message.getClass());
+    if (handler != null) {
+      handler.handleMessage(message, client);
+    }
+  }
+}
@@ -1,23 +1,21 @@
 package typeracer.server.message;
 
 import typeracer.communication.messages.Message;
+import typeracer.server.session.ClientContext;
 
-/** Interface for handling messages in a chain of responsibility pattern. */
-public interface MessageHandler {
+/**
+ * Interface for handling messages of one type. Handlers are registered with the {@link
+ * MessageDispatcher}, which calls them for every message of their type.
+ *
+ * @param <T> the type of message handled
+ */
+public interface MessageHandler<T extends Message> {
 
   /**
    * Handles the incoming message. Implementations should provide specific handling logic.
    *
    * @param message the message to handle
-   * @param clientId the unique id of the client
+   * @param client the context of the client that sent the message
    */
-  void handleMessage(Message message, int clientId);
-
-  /**
-   * Sets the next handler in the chain.
-   *
-   * @param handler the next handler in the chain
-   * @return a new MessageHandler instance with the set handler
-   */
-  MessageHandler setNext(MessageHandler handler);
+  void handleMessage(T message, ClientContext client);
 }
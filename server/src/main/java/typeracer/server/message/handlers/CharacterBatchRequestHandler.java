@@ -0,0 +1,52 @@
+package typeracer.server.message.handlers;
+
+import typeracer.communication.messages.client.CharacterBatchRequest;
+import typeracer.communication.messages.server.CharacterBatchResponse;
+import typeracer.game.Player;
+import typeracer.server.connection.ConnectionManager;
+import typeracer.server.message.MessageHandler;
+import typeracer.server.session.ClientContext;
+import typeracer.server.session.Session;
+import typeracer.server.utils.BatchTypingResult;
+
+/**
+ * Handles CharacterBatchRequest messages. All characters of a batch are typed within a single
+ * event of the session and acknowledged with a single {@link CharacterBatchResponse}. An instance
+ * is registered with the {@link typeracer.server.message.MessageDispatcher} for this message type.
+ */
+public class CharacterBatchRequestHandler implements MessageHandler<CharacterBatchRequest> {
+
+  /** The default constructor of this class. */
+  public CharacterBatchRequestHandler() {}
+
+  @Override
+  public void handleMessage(CharacterBatchRequest characterBatchRequest, ClientContext client) {
+    Session session = client.getSession();
+    String characters = characterBatchRequest.getCharacters();
+    if (session != null && characters != null && !characters.isEmpty()) {
+      int[] timeOffsets = characterBatchRequest.getTimeOffsets();
+      session.execute(() -> typeCharacters(session, client, characters, timeOffsets));
+    }
+  }
+
+  private void typeCharacters(
+      Session session, ClientContext client, String characters, int[] timeOffsets) {
+    int clientId = client.getClientId();
+    Player player = client.getPlayer(session);
+    if (player == null) {
+      System.err.println("Invalid character batch request: " + clientId + " has not joined");
+      return;
+    }
+    try {
+      BatchTypingResult result = session.validateCharacters(player, characters, timeOffsets);
+      if (result.getTypedCharacters() > 0) {
+        ConnectionManager.getInstance()
+            .sendMessage(
+                new CharacterBatchResponse(result.getTextIndex(), result.getFirstError()),
+                clientId);
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println("Invalid character batch request: " + e.getMessage());
+    }
+  }
+}
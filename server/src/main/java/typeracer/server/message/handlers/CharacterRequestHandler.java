@@ -1,55 +1,48 @@
 package typeracer.server.message.handlers;
 
-import typeracer.communication.messages.Message;
 import typeracer.communication.messages.client.CharacterRequest;
 import typeracer.communication.messages.server.CharacterResponse;
+import typeracer.game.Player;
 import typeracer.server.connection.ConnectionManager;
 import typeracer.server.message.MessageHandler;
+import typeracer.server.session.ClientContext;
 import typeracer.server.session.Session;
-import typeracer.server.session.SessionManager;
 import typeracer.server.utils.TypingResult;
 
 /**
- * Handles CharacterRequest messages in a chain of responsibility pattern. If the message is not of
- * the specified type, it will be passed to the next handler in the chain, if any.
+ * Handles CharacterRequest messages. An instance is registered with the {@link
+ * typeracer.server.message.MessageDispatcher} for this message type.
  */
-public class CharacterRequestHandler implements MessageHandler {
-
-  private final MessageHandler nextHandler;
+public class CharacterRequestHandler implements MessageHandler<CharacterRequest> {
 
   /** The default constructor of this class. */
-  public CharacterRequestHandler() {
-    this.nextHandler = null;
-  }
+  public CharacterRequestHandler() {}
 
-  private CharacterRequestHandler(MessageHandler nextHandler) {
-    this.nextHandler = nextHandler;
+  @Override
+  public void handleMessage(CharacterRequest characterRequest, ClientContext client) {
+    Session session = client.getSession();
+    if (session != null) {
+      char character = characterRequest.getCharacter();
+      session.execute(() -> typeCharacter(session, client, character));
+    }
   }
 
-  @Override
-  public void handleMessage(Message message, int clientId) {
+  private void typeCharacter(Session session, ClientContext client, char character) {
+    int clientId = client.getClientId();
+    // The player is cached on the client once it has joined, so no lookup is needed
+    Player player = client.getPlayer(session);
+    if (player == null) {
+      System.err.println("Invalid character request: " + clientId + " has not joined");
+      return;
+    }
     try {
-      if (message instanceof CharacterRequest characterRequest) {
-        Session session = SessionManager.getInstance().getSessionByClientId(clientId);
-        if (session != null) {
-          TypingResult result =
-              session.validateCharacter(clientId, characterRequest.getCharacter());
-          if (result == TypingResult.CORRECT || result == TypingResult.INCORRECT) {
-            boolean returnValue = result == TypingResult.CORRECT;
-            ConnectionManager.getInstance()
-                .sendMessage(new CharacterResponse(returnValue), clientId);
-          }
-        }
-      } else if (nextHandler != null) {
-        nextHandler.handleMessage(message, clientId);
+      TypingResult result = session.validateCharacter(player, character);
+      if (result == TypingResult.CORRECT || result == TypingResult.INCORRECT) {
+        boolean returnValue = result == TypingResult.CORRECT;
+        ConnectionManager.getInstance().sendMessage(new CharacterResponse(returnValue), clientId);
       }
     } catch (IllegalArgumentException e) {
       System.err.println("Invalid character request: " + e.getMessage());
     }
   }
-
-  @Override
-  public CharacterRequestHandler setNext(MessageHandler handler) {
-    return new CharacterRequestHandler(handler);
-  }
 }
@@ -1,48 +1,41 @@
 package typeracer.server.message.handlers;
 
-import typeracer.communication.messages.Message;
 import typeracer.communication.messages.client.CreateSessionRequest;
 import typeracer.communication.messages.server.CreateSessionResponse;
 import typeracer.communication.statuscodes.Reason;
 import typeracer.server.connection.ConnectionManager;
 import typeracer.server.message.MessageHandler;
+import typeracer.server.session.ClientContext;
+import typeracer.server.session.Session;
 import typeracer.server.session.SessionManager;
 
 /**
- * Handles CreateSessionRequest messages in a chain of responsibility pattern. If the message is not
- * of the specified type, it will be passed to the next handler in the chain, if any.
+ * Handles CreateSessionRequest messages. An instance is registered with the {@link
+ * typeracer.server.message.MessageDispatcher} for this message type.
  */
-public class CreateSessionRequestHandler implements MessageHandler {
-
-  private final MessageHandler nextHandler;
+public class CreateSessionRequestHandler implements MessageHandler<CreateSessionRequest> {
 
   /** The default constructor of this class. */
-  public CreateSessionRequestHandler() {
-    this.nextHandler = null;
-  }
-
-  private CreateSessionRequestHandler(MessageHandler nextHandler) {
-    this.nextHandler = nextHandler;
-  }
+  public CreateSessionRequestHandler() {}
 
   @Override
-  public void handleMessage(Message message, int clientId) {
-    if (message instanceof CreateSessionRequest) {
-      int sessionId = SessionManager.getInstance().createNewSession();
-      Reason reason = Reason.SESSION_CREATE_NO_PERMISSION;
-      if (sessionId > 0) {
-        SessionManager.getInstance().joinSessionById(clientId, sessionId);
-        reason = Reason.SUCCESS;
-      }
-      ConnectionManager.getInstance()
-          .sendMessage(new CreateSessionResponse(reason, sessionId), clientId);
-    } else if (nextHandler != null) {
-      nextHandler.handleMessage(message, clientId);
+  public void handleMessage(CreateSessionRequest createSessionRequest, ClientContext client) {
+    int clientId = client.getClientId();
+    int sessionId = SessionManager.getInstance().createNewSession();
+    Session session = SessionManager.getInstance().routeToSession(client, sessionId);
+    if (sessionId > 0 && session != null) {
+      session.execute(
+          () -> {
+            SessionManager.getInstance().joinSessionById(client, sessionId);
+            sendResponse(Reason.SUCCESS, sessionId, clientId);
+          });
+    } else {
+      sendResponse(Reason.SESSION_CREATE_NO_PERMISSION, sessionId, clientId);
     }
   }
 
-  @Override
-  public CreateSessionRequestHandler setNext(MessageHandler handler) {
-    return new CreateSessionRequestHandler(handler);
+  private void sendResponse(Reason reason, int sessionId, int clientId) {
+    ConnectionManager.getInstance()
+        .sendMessage(new CreateSessionResponse(reason, sessionId), clientId);
   }
 }
@@ -1,55 +1,49 @@
 package typeracer.server.message.handlers;
 
-import typeracer.communication.messages.Message;
+import java.util.List;
 import typeracer.communication.messages.client.HandshakeRequest;
 import typeracer.communication.messages.server.HandshakeResponse;
 import typeracer.communication.statuscodes.PermissionStatus;
 import typeracer.communication.statuscodes.Reason;
 import typeracer.server.connection.ConnectionManager;
 import typeracer.server.message.MessageHandler;
+import typeracer.server.session.ClientContext;
 
 /**
- * Handles HandshakeRequest messages in a chain of responsibility pattern. If the message is not of
- * the specified type, it will be passed to the next handler in the chain, if any.
+ * Handles HandshakeRequest messages. An instance is registered with the {@link
+ * typeracer.server.message.MessageDispatcher} for this message type.
  */
-public class HandshakeRequestHandler implements MessageHandler {
-
-  private final MessageHandler nextHandler;
+public class HandshakeRequestHandler implements MessageHandler<HandshakeRequest> {
 
   /** The default constructor of this class. */
-  public HandshakeRequestHandler() {
-    this.nextHandler = null;
-  }
-
-  private HandshakeRequestHandler(MessageHandler nextHandler) {
-    this.nextHandler = nextHandler;
-  }
+  public HandshakeRequestHandler() {}
 
   @Override
-  public void handleMessage(Message message, int clientId) {
-    if (message instanceof HandshakeRequest handshakeRequest) {
-      ConnectionManager.OperationStatus status =
-          ConnectionManager.getInstance()
-              .handlePlayerName(clientId, handshakeRequest.getPlayerName());
-
-      HandshakeResponse response;
-      switch (status) {
-        case SUCCESS ->
-            response = new HandshakeResponse(PermissionStatus.ACCEPTED, clientId, Reason.SUCCESS);
-        case INVALID_USERNAME ->
-            response =
-                new HandshakeResponse(PermissionStatus.DENIED, clientId, Reason.INVALID_USERNAME);
-        default ->
-            response = new HandshakeResponse(PermissionStatus.DENIED, clientId, Reason.UNKNOWN);
+  public void handleMessage(HandshakeRequest handshakeRequest, ClientContext client) {
+    int clientId = client.getClientId();
+    ConnectionManager.OperationStatus status =
+        ConnectionManager.getInstance()
+            .handlePlayerName(clientId, handshakeRequest.getPlayerName());
+
+    HandshakeResponse response;
+    switch (status) {
+      case SUCCESS -> {
+        List<String> requestedCapabilities = handshakeRequest.getCapabilities();
+        List<String> capabilities =
+            requestedCapabilities == null
+                ? null
+                : ConnectionManager.getInstance()
+                    .negotiateCapabilities(clientId, requestedCapabilities);
+        response =
+            new HandshakeResponse(
+                PermissionStatus.ACCEPTED, clientId, Reason.SUCCESS, capabilities);
       }
-      ConnectionManager.getInstance().sendMessage(response, clientId);
-    } else if (nextHandler != null) {
-      nextHandler.handleMessage(message, clientId);
+      case INVALID_USERNAME ->
+          response =
+              new HandshakeResponse(PermissionStatus.DENIED, clientId, Reason.INVALID_USERNAME);
+      default ->
+          response = new HandshakeResponse(PermissionStatus.DENIED, clientId, Reason.UNKNOWN);
     }
-  }
-
-  @Override
-  public HandshakeRequestHandler setNext(MessageHandler handler) {
-    return new HandshakeRequestHandler(handler);
+    ConnectionManager.getInstance().sendMessage(response, clientId);
   }
 }
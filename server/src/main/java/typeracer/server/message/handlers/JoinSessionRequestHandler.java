@@ -1,6 +1,5 @@
 package typeracer.server.message.handlers;
 
-import typeracer.communication.messages.Message;
 import typeracer.communication.messages.client.JoinSessionRequest;
 import typeracer.communication.messages.server.JoinSessionResponse;
 import typeracer.communication.messages.server.PlayerUpdateNotification;
@@ -8,83 +7,81 @@ import typeracer.communication.statuscodes.PermissionStatus;
 import typeracer.communication.statuscodes.Reason;
 import typeracer.server.connection.ConnectionManager;
 import typeracer.server.message.MessageHandler;
+import typeracer.server.session.ClientContext;
 import typeracer.server.session.Session;
 import typeracer.server.session.SessionManager;
 
 /**
- * Handles JoinSessionRequest messages in a chain of responsibility pattern. If the message is not
- * of the specified type, it will be passed to the next handler in the chain, if any.
+ * Handles JoinSessionRequest messages. An instance is registered with the {@link
+ * typeracer.server.message.MessageDispatcher} for this message type.
  */
-public class JoinSessionRequestHandler implements MessageHandler {
-
-  private final MessageHandler nextHandler;
+public class JoinSessionRequestHandler implements MessageHandler<JoinSessionRequest> {
 
   /** The default constructor of this class. */
-  public JoinSessionRequestHandler() {
-    this.nextHandler = null;
-  }
+  public JoinSessionRequestHandler() {}
 
-  private JoinSessionRequestHandler(MessageHandler nextHandler) {
-    this.nextHandler = nextHandler;
+  @Override
+  public void handleMessage(JoinSessionRequest joinSessionRequest, ClientContext client) {
+    int clientId = client.getClientId();
+    int sessionId = joinSessionRequest.getSessionId();
+    Session session = SessionManager.getInstance().routeToSession(client, sessionId);
+    if (session == null) {
+      ConnectionManager.getInstance()
+          .sendMessage(
+              new JoinSessionResponse(PermissionStatus.DENIED, Reason.SESSION_NOT_FOUND), clientId);
+    } else {
+      // Whether the session is full or has started can only be told from within its events
+      session.execute(() -> joinSession(client, session));
+    }
   }
 
-  @Override
-  public void handleMessage(Message message, int clientId) {
-    if (message instanceof JoinSessionRequest joinSessionRequest) {
-      int sessionId = joinSessionRequest.getSessionId();
-      SessionManager.OperationStatus status =
-          SessionManager.getInstance().joinSessionById(clientId, sessionId);
+  private void joinSession(ClientContext client, Session session) {
+    int clientId = client.getClientId();
+    SessionManager.OperationStatus status =
+        SessionManager.getInstance().joinSessionById(client, session.getId());
 
-      // Send JoinSessionResponse
-      JoinSessionResponse response;
-      switch (status) {
-        case SUCCESS ->
-            response = new JoinSessionResponse(PermissionStatus.ACCEPTED, Reason.SUCCESS);
-        case SESSION_NOT_FOUND ->
-            response = new JoinSessionResponse(PermissionStatus.DENIED, Reason.SESSION_NOT_FOUND);
-        case SESSION_GAME_ALREADY_STARTED ->
-            response =
-                new JoinSessionResponse(
-                    PermissionStatus.DENIED, Reason.SESSION_GAME_ALREADY_STARTED);
-        case SESSION_FULL ->
-            response = new JoinSessionResponse(PermissionStatus.DENIED, Reason.SESSION_FULL);
-        default -> response = new JoinSessionResponse(PermissionStatus.DENIED, Reason.UNKNOWN);
-      }
-      ConnectionManager.getInstance().sendMessage(response, clientId);
+    // Send JoinSessionResponse
+    JoinSessionResponse response;
+    switch (status) {
+      case SUCCESS ->
+          response = new JoinSessionResponse(PermissionStatus.ACCEPTED, Reason.SUCCESS);
+      case SESSION_NOT_FOUND ->
+          response = new JoinSessionResponse(PermissionStatus.DENIED, Reason.SESSION_NOT_FOUND);
+      case SESSION_GAME_ALREADY_STARTED ->
+          response =
+              new JoinSessionResponse(
+                  PermissionStatus.DENIED, Reason.SESSION_GAME_ALREADY_STARTED);
+      case SESSION_FULL ->
+          response = new JoinSessionResponse(PermissionStatus.DENIED, Reason.SESSION_FULL);
+      default -> response = new JoinSessionResponse(PermissionStatus.DENIED, Reason.UNKNOWN);
+    }
+    ConnectionManager.getInstance().sendMessage(response, clientId);
 
-      if (status == SessionManager.OperationStatus.SUCCESS) {
-        updatePlayers(clientId);
-      }
-    } else if (nextHandler != null) {
-      nextHandler.handleMessage(message, clientId);
+    if (status == SessionManager.OperationStatus.SUCCESS) {
+      updatePlayers(session, clientId);
     }
   }
 
-  private void updatePlayers(int clientId) {
-    Session session = SessionManager.getInstance().getSessionByClientId(clientId);
-    if (session != null) {
-      // Send PlayerUpdateNotification to all players to notify them about the connected client
-      int numPlayers = session.numberOfConnectedClients();
-      String playerName = ConnectionManager.getInstance().getPlayerName(clientId);
-      boolean playerReady = session.isPlayerReady(clientId);
-      session.broadcastMessage(
-          new PlayerUpdateNotification(numPlayers, clientId, playerName, playerReady));
+  /**
+   * Notifies the players of the session the client just joined about each other. Uses the joined
+   * session itself, as the client may already be routed to the next session it wants to join.
+   */
+  private void updatePlayers(Session session, int clientId) {
+    // Send PlayerUpdateNotification to all players to notify them about the connected client
+    int numPlayers = session.numberOfConnectedClients();
+    String playerName = ConnectionManager.getInstance().getPlayerName(clientId);
+    boolean playerReady = session.isPlayerReady(clientId);
+    session.broadcastMessage(
+        new PlayerUpdateNotification(numPlayers, clientId, playerName, playerReady));
 
-      // Send PlayerUpdateNotifications to the connected client for every player in the session
-      for (int playerId : session.getPlayerIds()) {
-        if (playerId != clientId) {
-          String name = ConnectionManager.getInstance().getPlayerName(playerId);
-          boolean ready = session.isPlayerReady(playerId);
-          ConnectionManager.getInstance()
-              .sendMessage(
-                  new PlayerUpdateNotification(numPlayers, playerId, name, ready), clientId);
-        }
+    // Send PlayerUpdateNotifications to the connected client for every player in the session
+    for (int playerId : session.getPlayerIds()) {
+      if (playerId != clientId) {
+        String name = ConnectionManager.getInstance().getPlayerName(playerId);
+        boolean ready = session.isPlayerReady(playerId);
+        ConnectionManager.getInstance()
+            .sendMessage(new PlayerUpdateNotification(numPlayers, playerId, name, ready), clientId);
       }
     }
   }
-
-  @Override
-  public JoinSessionRequestHandler setNext(MessageHandler handler) {
-    return new JoinSessionRequestHandler(handler);
-  }
 }
@@ -0,0 +1,107 @@
+package typeracer.server.session;
+
+import java.util.concurrent.atomic.AtomicReference;
+import typeracer.game.Player;
+
+/**
+ * The session state of one connected client. Every connection owns a context, which keeps direct
+ * references to the session the client is routed to and to the client's player in that session's
+ * game. Handling a keystroke therefore only reads these fields instead of looking the session and
+ * the player up by the client's id. The {@link SessionManager} updates the context whenever the
+ * client joins or leaves a session.
+ */
+public final class ClientContext {
+
+  private final int clientId;
+
+  private final AtomicReference<Session> session = new AtomicReference<>();
+  private final AtomicReference<Binding> binding = new AtomicReference<>();
+
+  /**
+   * Constructs a new ClientContext for a client that is not in any session yet.
+   *
+   * @param clientId the unique id of the client
+   */
+  public ClientContext(int clientId) {
+    this.clientId = clientId;
+  }
+
+  /**
+   * Returns the unique id of the client.
+   *
+   * @return the unique id of the client
+   */
+  public int getClientId() {
+    return clientId;
+  }
+
+  /**
+   * Returns the session the client's messages are routed to. The client may not have joined it yet,
+   * see {@link SessionManager#routeToSession(ClientContext, int)}.
+   *
+   * @return the session of the client, or null if the client is not in a session
+   */
+  public Session getSession() {
+    return session.get();
+  }
+
+  /**
+   * Returns the client's player in the game of the given session. Should be called from an event of
+   * the session.
+   *
+   * @param session the session the player belongs to
+   * @return the player of the client, or null if the client has not joined the given session
+   */
+  public Player getPlayer(Session session) {
+    Binding current = binding.get();
+    return current != null && current.session == session ? current.player : null;
+  }
+
+  /** Routes the client's messages to the given session. */
+  void route(Session session) {
+    this.session.set(session);
+  }
+
+  /**
+   * Binds the client to its player after joining the given session. Routes the client to the
+   * session, unless it is routed elsewhere already.
+   */
+  void bind(Session session, Player player) {
+    this.session.compareAndSet(null, session);
+    binding.set(new Binding(session, player));
+  }
+
+  /**
+   * Routes the client back to the session it has joined, if it is still routed to the given
+   * session, e.g. because joining the given session failed.
+   *
+   * @return the session the client has joined, or null if it has not joined any
+   */
+  Session unroute(Session session) {
+    Binding current = binding.get();
+    Session joined = current != null ? current.session : null;
+    this.session.compareAndSet(session, joined);
+    return joined;
+  }
+
+  /** Forgets the given session, unless the client has moved on to another session already. */
+  void unbind(Session session) {
+    this.session.compareAndSet(session, null);
+    Binding current = binding.get();
+    if (current != null && current.session == session) {
+      binding.compareAndSet(current, null);
+    }
+  }
+
+  /** A player together with the session whose game it belongs to. */
+  private static final class Binding {
+
+    private final Session session;
+    private final Player player;
+
+    private Binding(Session session, Player player) {
+      this.session = session;
+      this.player = player;
+    }
+  }
+}
@@ -1,12 +1,22 @@
 package typeracer.server.session;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import typeracer.communication.Capabilities;
 import typeracer.communication.messages.Message;
+import typeracer.communication.messages.server.PlayerStateNotification;
+import typeracer.communication.messages.server.RaceSnapshotNotification;
+import typeracer.communication.messages.server.RaceSnapshotNotification.PlayerState;
 import typeracer.communication.statuscodes.GameStatus;
+import typeracer.game.Player;
+import typeracer.game.TextSource;
 import typeracer.game.TypeRacerGame;
 import typeracer.server.connection.ConnectionManager;
+import typeracer.server.utils.BatchTypingResult;
 import typeracer.server.utils.TypingResult;
 
 /**
@@ -14,36 +24,147 @@ import typeracer.server.utils.TypingResult;
  * dedicated to a single typeracer game and manages all clients connected to that session. It
  * functions as a mediator, following the mediator design pattern, facilitating communication
  * between the game logic and the connected clients.
+ *
+ * <p>Everything that changes the session or its game, e.g. players joining, typing or becoming
+ * ready and the periodic player state updates, is queued as an event with {@link
+ * #execute(Runnable)}. Events run on the session loop the session is bound to, one at a time in the
+ * order they were queued, so the methods of this class must only be called from within an event
+ * and need no locks.
  */
 public final class Session {
 
   /** Defines the maximum number of players allowed in one session. */
   public static final int MAX_SIZE = 5;
 
-  private final TypeRacerGame game = new TypeRacerGame(this);
-  private final Set<Integer> playerIds = Collections.synchronizedSet(new HashSet<>());
+  private final int id;
+  private final TypeRacerGame game;
+  private final Executor loop;
+  private final AtomicReference<Membership> membership = new AtomicReference<>(Membership.EMPTY);
 
-  /** The default constructor of this class. */
-  public Session() {}
+  /** Constructs a new Session without an id, e.g. for testing. Its id is 0. */
+  public Session() {
+    this(0, SessionManager.getInstance().getSessionLoop(0));
+  }
+
+  /**
+   * Constructs a new Session with the specified id.
+   *
+   * @param id the unique id of the session
+   * @param loop the session loop running the events of the session
+   */
+  Session(int id, Executor loop) {
+    this.id = id;
+    this.loop = loop;
+    this.game = new TypeRacerGame(this);
+  }
+
+  /**
+   * Constructs a new Session with the specified id whose game uses the given text source instead of
+   * generating a text.
+   *
+   * @param id the unique id of the session
+   * @param loop the session loop running the events of the session
+   * @param textSource the source of the text the players have to type
+   */
+  Session(int id, Executor loop, TextSource textSource) {
+    this.id = id;
+    this.loop = loop;
+    this.game = new TypeRacerGame(textSource, this);
+  }
+
+  /**
+   * Returns the unique id of this session.
+   *
+   * @return the id of this session, 0 if it has none
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Queues an event of this session. Events run one at a time in the order they were queued, after
+   * all events queued before. Does not block.
+   *
+   * @param event the event to run
+   */
+  public void execute(Runnable event) {
+    loop.execute(() -> runEvent(event));
+  }
+
+  private void runEvent(Runnable event) {
+    try {
+      event.run();
+    } catch (RuntimeException | AssertionError e) {
+      // The loop is shared with other sessions, which must not be affected by a faulty event
+      System.out.println("An event of session " + id + " failed: " + e);
+    }
+  }
 
   /**
-   * Adds a newly connected client to the session as a player.
+   * Adds a newly connected client to the session as a player, unless the session is closed, full or
+   * its game has started.
    *
    * @param playerId the unique id of the player
+   * @return {@link SessionManager.OperationStatus#SUCCESS} if the player was added, otherwise the
+   *     reason why not
    */
-  public synchronized void handlePlayer(int playerId) {
-    playerIds.add(playerId);
+  SessionManager.OperationStatus handlePlayer(int playerId) {
+    if (hasGameStarted()) {
+      return SessionManager.OperationStatus.SESSION_GAME_ALREADY_STARTED;
+    }
+    Membership current;
+    Membership updated;
+    do {
+      current = membership.get();
+      if (current.closed) {
+        return SessionManager.OperationStatus.SESSION_NOT_FOUND;
+      }
+      if (current.playerIds.size() >= MAX_SIZE) {
+        return SessionManager.OperationStatus.SESSION_FULL;
+      }
+      if (current.playerIds.contains(playerId)) {
+        return SessionManager.OperationStatus.FAIL;
+      }
+      updated = current.with(playerId);
+    } while (!membership.compareAndSet(current, updated));
     game.addPlayer(playerId);
+    return SessionManager.OperationStatus.SUCCESS;
   }
 
   /**
    * Removes a recently disconnected client from the session.
    *
    * @param playerId the unique id of the player
+   * @return <code>true</code> if the player was removed, <code>false</code> if it was not in the
+   *     session
    */
-  public synchronized void unhandlePlayer(int playerId) {
-    playerIds.remove(playerId);
+  boolean unhandlePlayer(int playerId) {
+    Membership current;
+    do {
+      current = membership.get();
+      if (!current.playerIds.contains(playerId)) {
+        return false;
+      }
+    } while (!membership.compareAndSet(current, current.without(playerId)));
     game.removePlayer(playerId);
+    return true;
+  }
+
+  /**
+   * Marks this session as closed, so no client can join it anymore.
+   *
+   * @return <code>true</code> if the session was closed by this call, <code>false</code> if it was
+   *     closed already
+   */
+  boolean markClosed() {
+    Membership current;
+    do {
+      current = membership.get();
+      if (current.closed) {
+        return false;
+      }
+    } while (!membership.compareAndSet(current, current.asClosed()));
+    return true;
   }
 
   /**
@@ -53,7 +174,7 @@ public final class Session {
    * @param ready <code>true</code> if the player is ready, <code>false</code> otherwise
    * @return <code>true</code> if the readiness status was updated, <code>false</code> otherwise
    */
-  public synchronized boolean updateReadiness(int playerId, boolean ready) {
+  public boolean updateReadiness(int playerId, boolean ready) {
     return game.setPlayerReady(playerId, ready);
   }
 
@@ -63,12 +184,43 @@ public final class Session {
   }
 
   /**
-   * Broadcasts a message to all clients connected to this session.
+   * Broadcasts a message to all clients connected to this session. The message is encoded once for
+   * all of them.
    *
    * @param message the message to be broadcast
    */
   public void broadcastMessage(Message message) {
-    playerIds.forEach(id -> sendMessage(message, id));
+    ConnectionManager.getInstance().broadcastMessage(message, membership.get().playerIds);
+  }
+
+  /**
+   * Broadcasts the state of all players to all clients connected to this session. Clients that
+   * negotiated {@link Capabilities#RACE_SNAPSHOT} receive the snapshot as a whole, all others one
+   * {@link PlayerStateNotification} per player.
+   *
+   * @param snapshot the state of all players
+   */
+  public void broadcastRaceSnapshot(RaceSnapshotNotification snapshot) {
+    ConnectionManager connectionManager = ConnectionManager.getInstance();
+    List<Integer> snapshotClientIds = new ArrayList<>();
+    List<Integer> legacyClientIds = new ArrayList<>();
+    for (int playerId : membership.get().playerIds) {
+      if (connectionManager.hasCapability(playerId, Capabilities.RACE_SNAPSHOT)) {
+        snapshotClientIds.add(playerId);
+      } else {
+        legacyClientIds.add(playerId);
+      }
+    }
+
+    connectionManager.broadcastMessage(snapshot, snapshotClientIds);
+    if (!legacyClientIds.isEmpty()) {
+      for (PlayerState player : snapshot.getPlayers()) {
+        connectionManager.broadcastMessage(
+            new PlayerStateNotification(
+                player.getAccuracy(), player.getPlayerId(), player.getProgress(), player.getWpm()),
+            legacyClientIds);
+      }
+    }
   }
 
   /**
@@ -87,19 +239,34 @@ public final class Session {
    * @return the number of connected clients
    */
   public int numberOfConnectedClients() {
-    return playerIds.size();
+    return membership.get().playerIds.size();
   }
 
   /**
-   * Validates whether the typed character is correct for the specified player.
+   * Validates whether the typed character is correct for the given player, without looking the
+   * player up.
    *
-   * @param playerId the unique id of the player
+   * @param player the player, see {@link ClientContext#getPlayer(Session)}
    * @param character the input character
-   * @return <code>true</code> if the typed character is correct, <code>false</code> otherwise
+   * @return the result of typing the character
    */
-  public TypingResult validateCharacter(int playerId, char character)
+  public TypingResult validateCharacter(Player player, char character) {
+    return game.typeCharacter(player, character);
+  }
+
+  /**
+   * Validates a run of characters typed by the given player, in the order they were typed.
+   *
+   * @param player the player, see {@link ClientContext#getPlayer(Session)}
+   * @param characters the typed characters
+   * @param timeOffsets for every character, the milliseconds since the first one was typed, or null
+   * @return the result of typing the characters
+   * @throws IllegalArgumentException if the offsets do not match the characters, do not start at 0
+   *     or decrease
+   */
+  public BatchTypingResult validateCharacters(Player player, String characters, int[] timeOffsets)
       throws IllegalArgumentException {
-    return game.typeCharacter(playerId, character);
+    return game.typeCharacters(player, characters, timeOffsets);
   }
 
   /** Closes this session and stops the game. */
@@ -153,12 +320,62 @@ public final class Session {
     return numberOfConnectedClients() == 0;
   }
 
+  /**
+   * Returns the player with the given id in this session's game.
+   *
+   * @param playerId the unique id of the player
+   * @return the player, or null if it is not in this session
+   */
+  Player getPlayer(int playerId) {
+    return game.getPlayer(playerId);
+  }
+
+  /**
+   * Returns whether the specified player is connected to this session.
+   *
+   * @param playerId the unique id of the player
+   * @return <code>true</code> if the player is in this session, <code>false</code> otherwise
+   */
+  public boolean containsPlayer(int playerId) {
+    return membership.get().playerIds.contains(playerId);
+  }
+
   /**
    * Returns a set of all player ids.
    *
    * @return all player ids
    */
   public Set<Integer> getPlayerIds() {
-    return Set.copyOf(playerIds);
+    return membership.get().playerIds;
+  }
+
+  /** The players of a session and whether it is closed. Immutable, so it can be swapped by CAS. */
+  private static final class Membership {
+
+    private static final Membership EMPTY = new Membership(Set.of(), false);
+
+    private final Set<Integer> playerIds;
+    private final boolean closed;
+
+    private Membership(Set<Integer> playerIds, boolean closed) {
+      this.playerIds = playerIds;
+      this.closed = closed;
+    }
+
+    private Membership with(int playerId) {
+      Set<Integer> ids = new HashSet<>(playerIds);
+      ids.add(playerId);
+      return new Membership(Set.copyOf(ids), closed);
+    }
+
+    private Membership without(int playerId) {
+      Set<Integer> ids = new HashSet<>(playerIds);
+      ids.remove(playerId);
+      return new Membership(Set.copyOf(ids), closed);
+    }
+
+    private Membership asClosed() {
+      return new Membership(playerIds, true);
+    }
   }
 }
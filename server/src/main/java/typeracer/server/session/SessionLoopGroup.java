@@ -0,0 +1,54 @@
+package typeracer.server.session;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A fixed pool of single-threaded loops running the events of all sessions. Every session is bound
+ * to one loop by its id, so all events of a session, including the keystrokes of its players, run
+ * on the same thread one after another. A session's state therefore stays in the caches of one core
+ * and needs no locks, while different sessions are processed in parallel.
+ */
+final class SessionLoopGroup {
+
+  private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+  private final ExecutorService[] loops;
+
+  private SessionLoopGroup(ExecutorService[] loops) {
+    this.loops = loops;
+  }
+
+  /**
+   * Creates a new SessionLoopGroup and starts all of its loops.
+   *
+   * @param numberOfLoops the number of session loops, must be positive
+   * @return a new SessionLoopGroup instance
+   */
+  static SessionLoopGroup create(int numberOfLoops) {
+    if (numberOfLoops <= 0) {
+      throw new IllegalArgumentException("The number of session loops must be positive");
+    }
+    ExecutorService[] loops = new ExecutorService[numberOfLoops];
+    for (int i = 0; i < numberOfLoops; i++) {
+      loops[i] =
+          Executors.newSingleThreadExecutor(
+              Thread.ofPlatform().name("session-loop-" + i).daemon().factory());
+    }
+    return new SessionLoopGroup(loops);
+  }
+
+  /**
+   * Returns the loop the session with the given id is bound to. The same id always yields the same
+   * loop.
+   *
+   * @param sessionId the unique id of the session
+   * @return the loop running the events of the session
+   */
+  Executor loopFor(int sessionId) {
+    // Session ids grow in random steps, mixing their bits spreads them evenly across the loops
+    long hash = Integer.toUnsignedLong(sessionId * GOLDEN_RATIO);
+    return loops[(int) ((hash * loops.length) >>> 32)];
+  }
+}
@@ -1,12 +1,19 @@
 package typeracer.server.session;
 
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import typeracer.game.TextSource;
 import typeracer.server.connection.ConnectionManager;
+import typeracer.server.utils.ConcurrentIntIntMap;
+import typeracer.server.utils.ConcurrentIntObjectMap;
 import typeracer.server.utils.IdentifierGenerator;
 
-/** This singleton class is responsible for managing all sessions. */
+/**
+ * This singleton class is responsible for managing all sessions. It does not hold a global lock:
+ * looking up the session of a client only reads primitive int-keyed maps without locking, and
+ * joining or leaving atomically updates the membership of the affected session alone.
+ */
 public final class SessionManager {
 
   /** Status of a session operation. */
@@ -24,10 +31,14 @@ public final class SessionManager {
   }
 
   private static final SessionManager INSTANCE = new SessionManager();
+  private static final int NO_SESSION = 0; // Generated ids are positive
 
-  private final Map<Integer, Session> sessionBySessionId = new ConcurrentHashMap<>();
-  private final Map<Integer, Integer> sessionIdByClientId = new ConcurrentHashMap<>();
+  private final ConcurrentIntObjectMap<Session> sessionBySessionId = new ConcurrentIntObjectMap<>();
+  private final ConcurrentIntIntMap sessionIdByClientId = new ConcurrentIntIntMap();
   private final IdentifierGenerator identifierGenerator = new IdentifierGenerator();
+  private final ReentrantLock sessionLoopLock = new ReentrantLock();
+  private int numberOfSessionLoops = Runtime.getRuntime().availableProcessors();
+  private volatile SessionLoopGroup sessionLoopGroup;
 
   private SessionManager() {}
 
@@ -36,10 +47,9 @@ public final class SessionManager {
    *
    * @return the id of the created session, -1 if creation failed
    */
-  public synchronized int createNewSession() {
+  public int createNewSession() {
     int id = identifierGenerator.generateId();
-    Session session = new Session();
-    sessionBySessionId.put(id, session);
+    sessionBySessionId.put(id, new Session(id, getSessionLoop(id)));
     return id;
   }
 
@@ -49,91 +59,172 @@ public final class SessionManager {
    *
    * @param id the id of the session
    */
-  public synchronized void createNewSession(int id) {
-    Session session = new Session();
-    sessionBySessionId.put(id, session);
+  public void createNewSession(int id) {
+    sessionBySessionId.put(id, new Session(id, getSessionLoop(id)));
+  }
+
+  /**
+   * FOR BENCHMARKING PURPOSE ONLY. Creates a new {@link Session} instance with the specified id,
+   * whose game uses the given text source instead of generating a text.
+   *
+   * @param id the id of the session
+   * @param textSource the source of the text the players have to type
+   */
+  void createNewSession(int id, TextSource textSource) {
+    sessionBySessionId.put(id, new Session(id, getSessionLoop(id), textSource));
   }
 
   /**
    * Closes an existing session by its id and disconnects all corresponding clients. If the session
-   * does not exist, nothing happens.
+   * does not exist, nothing happens. Once closed, no client can join the session anymore.
    *
    * @param sessionId the unique id of the session
    */
-  public synchronized void closeSession(int sessionId) {
-    Session session = sessionBySessionId.getOrDefault(sessionId, null);
-    if (session != null) {
-      // Disconnect all clients
-      Set<Integer> clientIds = session.getPlayerIds();
-      for (int clientId : clientIds) {
-        ConnectionManager.getInstance().disconnectClient(clientId);
-        sessionIdByClientId.remove(clientId);
-      }
+  public void closeSession(int sessionId) {
+    Session session = sessionBySessionId.get(sessionId);
+    if (session == null || !session.markClosed()) {
+      return; // Closed by someone else already
+    }
+    // Disconnect all clients
+    Set<Integer> clientIds = session.getPlayerIds();
+    for (int clientId : clientIds) {
+      ConnectionManager.getInstance().disconnectClient(clientId);
+      sessionIdByClientId.remove(clientId, sessionId);
+    }
 
-      session.close();
-      sessionBySessionId.remove(sessionId);
+    session.close();
+    sessionBySessionId.remove(sessionId, session);
+  }
+
+  /**
+   * Routes all further messages of a client to the session with the given id, before the client has
+   * actually joined it. The event joining the session is queued next, so the session handles the
+   * following messages of the client only after it. If joining fails, the client is routed back to
+   * the session it is still in, if any.
+   *
+   * @param client the client attempting to join the session
+   * @param sessionId the unique id of the session
+   * @return the session with the given id, or null if no such session exists
+   */
+  public Session routeToSession(ClientContext client, int sessionId) {
+    Session session = sessionBySessionId.get(sessionId);
+    if (session != null) {
+      sessionIdByClientId.put(client.getClientId(), sessionId);
+      client.route(session);
     }
+    return session;
   }
 
   /**
-   * Allows a client to join a session by its id.
+   * Allows a client to join a session by its id. Must be called from an event of the session, see
+   * {@link Session#execute(Runnable)}.
    *
-   * @param clientId the id of the client attempting to join the session
+   * @param client the client attempting to join the session
    * @param sessionId the unique id of the session
    * @return the operation status of this method. {@link OperationStatus#SUCCESS} if the action was
    *     successful. Otherwise, a corresponding error status.
    */
-  public synchronized OperationStatus joinSessionById(int clientId, int sessionId) {
-    Session session = sessionBySessionId.getOrDefault(sessionId, null);
-    if (session == null) {
-      return OperationStatus.SESSION_NOT_FOUND;
-    }
-    if (session.hasGameStarted()) {
-      return OperationStatus.SESSION_GAME_ALREADY_STARTED;
-    }
-    if (session.isFull()) {
-      return OperationStatus.SESSION_FULL;
+  public OperationStatus joinSessionById(ClientContext client, int sessionId) {
+    int clientId = client.getClientId();
+    Session session = sessionBySessionId.get(sessionId);
+    OperationStatus status =
+        session == null ? OperationStatus.SESSION_NOT_FOUND : session.handlePlayer(clientId);
+
+    if (status == OperationStatus.SUCCESS) {
+      // The client may already be routed to the next session it wants to join
+      sessionIdByClientId.putIfAbsent(clientId, sessionId);
+      client.bind(session, session.getPlayer(clientId));
+    } else {
+      // Undo routeToSession(), unless the client is routed to yet another session already
+      Session routed = client.getSession();
+      if (routed != null && routed.getId() == sessionId) {
+        Session joined = client.unroute(routed);
+        if (joined != null) {
+          sessionIdByClientId.replace(clientId, sessionId, joined.getId());
+        } else {
+          sessionIdByClientId.remove(clientId, sessionId);
+        }
+      }
     }
-
-    session.handlePlayer(clientId);
-    sessionIdByClientId.put(clientId, sessionId);
-    return OperationStatus.SUCCESS;
+    return status;
   }
 
   /**
-   * Allows a client to leave their current session. If the client is not in a session or the
-   * session does not exist, nothing happens.
+   * Allows a client to leave a session. If the client is not in the session or the session does
+   * not exist, nothing happens. Must be called from an event of the session, see {@link
+   * Session#execute(Runnable)}.
    *
-   * @param clientId the id of the client attempting to leave the session
+   * @param client the client attempting to leave the session
+   * @param sessionId the unique id of the session
    * @return <code>true</code> if leaving was successful, <code>false</code> otherwise
    */
-  public synchronized boolean leaveSession(int clientId) {
-    int sessionId = sessionIdByClientId.getOrDefault(clientId, -1);
-    Session session = sessionBySessionId.getOrDefault(sessionId, null);
-    if (session != null) {
-      session.unhandlePlayer(clientId);
-      sessionIdByClientId.remove(clientId);
-
-      if (session.isEmpty()) { // Delete empty sessions
-        closeSession(sessionId);
-      } else if (session.isEveryoneReady()) { // Start game if everyone is ready now
-        session.startGame();
-      }
-
-      return true;
+  public boolean leaveSession(ClientContext client, int sessionId) {
+    Session session = sessionBySessionId.get(sessionId);
+    if (session == null || !session.unhandlePlayer(client.getClientId())) {
+      return false;
+    }
+    // The client may already be routed to the next session it wants to join
+    sessionIdByClientId.remove(client.getClientId(), sessionId);
+    client.unbind(session);
+
+    if (session.isEmpty()) { // Delete empty sessions
+      closeSession(sessionId);
+    } else if (session.isEveryoneReady()) { // Start game if everyone is ready now
+      session.startGame();
     }
-    return false;
+    return true;
   }
 
   /**
-   * Returns the session the given client is connected to.
+   * Returns the session the given client is connected to. Never blocks.
    *
    * @param clientId the unique id of the client
    * @return the session associated with the given client, or null if no such session exists
    */
-  public synchronized Session getSessionByClientId(int clientId) {
-    int sessionId = sessionIdByClientId.getOrDefault(clientId, -1);
-    return sessionBySessionId.getOrDefault(sessionId, null);
+  public Session getSessionByClientId(int clientId) {
+    int sessionId = sessionIdByClientId.getOrDefault(clientId, NO_SESSION);
+    return sessionId == NO_SESSION ? null : sessionBySessionId.get(sessionId);
+  }
+
+  /**
+   * Sets the number of session loops running the events of all sessions. Has no effect once the
+   * first session has been created.
+   *
+   * @param numberOfSessionLoops the number of session loop threads, must be positive
+   */
+  public void setNumberOfSessionLoops(int numberOfSessionLoops) {
+    if (numberOfSessionLoops <= 0) {
+      throw new IllegalArgumentException("The number of session loops must be positive");
+    }
+    sessionLoopLock.lock();
+    try {
+      this.numberOfSessionLoops = numberOfSessionLoops;
+    } finally {
+      sessionLoopLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the session loop the session with the given id is bound to, starting the loops first if
+   * necessary.
+   *
+   * @param sessionId the unique id of the session
+   * @return the loop running the events of the session
+   */
+  Executor getSessionLoop(int sessionId) {
+    SessionLoopGroup group = sessionLoopGroup;
+    if (group == null) {
+      sessionLoopLock.lock();
+      try {
+        if (sessionLoopGroup == null) {
+          sessionLoopGroup = SessionLoopGroup.create(numberOfSessionLoops);
+        }
+        group = sessionLoopGroup;
+      } finally {
+        sessionLoopLock.unlock();
+      }
+    }
+    return group.loopFor(sessionId);
   }
 
   /**
@@ -141,7 +232,7 @@ public final class SessionManager {
    *
    * @return the singleton instance of this class
    */
-  public static synchronized SessionManager getInstance() {
+  public static SessionManager getInstance() {
     return INSTANCE;
   }
 }
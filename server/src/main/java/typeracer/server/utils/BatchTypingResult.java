@@ -0,0 +1,52 @@
+package typeracer.server.utils;
+
+/** The result of trying to type a run of characters at once. */
+public final class BatchTypingResult {
+
+  private final int typedCharacters;
+  private final int textIndex;
+  private final int firstError;
+
+  /**
+   * Constructs a new BatchTypingResult with the specified arguments.
+   *
+   * @param typedCharacters the number of characters of the batch that were typed, fewer than in the
+   *     batch if the player finished
+   * @param textIndex the number of characters of the text the player has typed correctly
+   * @param firstError the position within the batch of the first incorrect character, -1 if there
+   *     was none
+   */
+  public BatchTypingResult(int typedCharacters, int textIndex, int firstError) {
+    this.typedCharacters = typedCharacters;
+    this.textIndex = textIndex;
+    this.firstError = firstError;
+  }
+
+  /**
+   * Returns the number of characters of the batch that were typed. The characters after the one
+   * finishing the text are ignored, as are all characters if the player had finished already.
+   *
+   * @return the number of typed characters
+   */
+  public int getTypedCharacters() {
+    return typedCharacters;
+  }
+
+  /**
+   * Returns the number of characters of the text the player has typed correctly after the batch.
+   *
+   * @return the player's position in the text
+   */
+  public int getTextIndex() {
+    return textIndex;
+  }
+
+  /**
+   * Returns the position within the batch of the first incorrect character.
+   *
+   * @return the position of the first error, -1 if every typed character was correct
+   */
+  public int getFirstError() {
+    return firstError;
+  }
+}
@@ -0,0 +1,128 @@
+package typeracer.server.utils;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe hash map from primitive int keys to primitive int values. It works like {@link
+ * ConcurrentIntObjectMap}: lookups read optimistically without locking, and writers only lock the
+ * segment of their key.
+ */
+public final class ConcurrentIntIntMap {
+
+  private static final int SEGMENT_BITS = 4;
+
+  private final Segment[] segments;
+
+  /** Constructs a new, empty ConcurrentIntIntMap. */
+  public ConcurrentIntIntMap() {
+    segments = new Segment[1 << SEGMENT_BITS];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment();
+    }
+  }
+
+  private Segment segmentFor(int key) {
+    return segments[IntHash.mix(key) >>> (Integer.SIZE - SEGMENT_BITS)];
+  }
+
+  /**
+   * Returns the value of the given key, or the given default value if there is none. Never blocks
+   * unless a writer modifies the same segment.
+   *
+   * @param key the key
+   * @param defaultValue the value to return if the map does not contain the key
+   * @return the value of the key, or the default value
+   */
+  public int getOrDefault(int key, int defaultValue) {
+    Segment segment = segmentFor(key);
+    StampedLock lock = segment.lock;
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      int value = segment.map.getOrDefault(key, defaultValue);
+      if (lock.validate(stamp)) {
+        return value;
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return segment.map.getOrDefault(key, defaultValue);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Associates the given value with the given key, replacing any previous value.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(int key, int value) {
+    Segment segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      segment.map.put(key, value);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Associates the given value with the given key, unless the map contains the key already.
+   *
+   * @param key the key
+   * @param value the value
+   * @return <code>true</code> if the value was added, <code>false</code> if the key was present
+   */
+  public boolean putIfAbsent(int key, int value) {
+    Segment segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.putIfAbsent(key, value);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes the given key only if it is associated with the given value.
+   *
+   * @param key the key
+   * @param value the value the key must be associated with
+   * @return <code>true</code> if the key was removed, <code>false</code> otherwise
+   */
+  public boolean remove(int key, int value) {
+    Segment segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.remove(key, value);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Replaces the value of the given key only if it is associated with the given old value.
+   *
+   * @param key the key
+   * @param oldValue the value the key must be associated with
+   * @param newValue the new value of the key
+   * @return <code>true</code> if the value was replaced, <code>false</code> otherwise
+   */
+  public boolean replace(int key, int oldValue, int newValue) {
+    Segment segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.replace(key, oldValue, newValue);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /** A part of the map with a lock of its own. */
+  private static final class Segment {
+
+    private final StampedLock lock = new StampedLock();
+    private final IntIntMap map = new IntIntMap();
+  }
+}
@@ -0,0 +1,149 @@
+package typeracer.server.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe hash map from primitive int keys to objects. The keys are spread over a fixed
+ * number of segments, each an {@link IntObjectMap} guarded by a lock of its own, so writers only
+ * contend within a segment. Lookups do not lock at all: they read the segment optimistically and
+ * only retry under the read lock if a writer interfered, so they never block and never box the key.
+ * Null values are not supported.
+ *
+ * <p>A {@link java.util.concurrent.locks.StampedLock} is used instead of a ReentrantLock, as only
+ * it supports optimistic reads. Like a ReentrantLock, it does not pin virtual threads.
+ *
+ * @param <V> the type of the values
+ */
+public final class ConcurrentIntObjectMap<V> {
+
+  private static final int SEGMENT_BITS = 4;
+
+  private final Segment<V>[] segments;
+
+  /** Constructs a new, empty ConcurrentIntObjectMap. */
+  @SuppressWarnings("unchecked")
+  public ConcurrentIntObjectMap() {
+    segments = (Segment<V>[]) new Segment<?>[1 << SEGMENT_BITS];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment<>();
+    }
+  }
+
+  private Segment<V> segmentFor(int key) {
+    return segments[IntHash.mix(key) >>> (Integer.SIZE - SEGMENT_BITS)];
+  }
+
+  /**
+   * Returns the value of the given key. Never blocks unless a writer modifies the same segment.
+   *
+   * @param key the key
+   * @return the value of the key, or null if the map does not contain the key
+   */
+  public V get(int key) {
+    Segment<V> segment = segmentFor(key);
+    StampedLock lock = segment.lock;
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      V value = segment.map.get(key);
+      if (lock.validate(stamp)) {
+        return value;
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return segment.map.get(key);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Returns the value of the given key, or the given default value if there is none.
+   *
+   * @param key the key
+   * @param defaultValue the value to return if the map does not contain the key
+   * @return the value of the key, or the default value
+   */
+  public V getOrDefault(int key, V defaultValue) {
+    V value = get(key);
+    return value != null ? value : defaultValue;
+  }
+
+  /**
+   * Associates the given value with the given key, replacing any previous value.
+   *
+   * @param key the key
+   * @param value the value, must not be null
+   * @return the previous value of the key, or null if there was none
+   */
+  public V put(int key, V value) {
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.put(key, value);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes the given key.
+   *
+   * @param key the key
+   * @return the removed value, or null if the map did not contain the key
+   */
+  public V remove(int key) {
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.remove(key);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes the given key only if it is associated with the given value.
+   *
+   * @param key the key
+   * @param value the value the key must be associated with
+   * @return <code>true</code> if the key was removed, <code>false</code> otherwise
+   */
+  public boolean remove(int key, V value) {
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.remove(key, value);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns all values, in no particular order. The values of each segment are consistent, but
+   * entries may be added or removed in other segments meanwhile.
+   *
+   * @return a new list of all values
+   */
+  public List<V> values() {
+    List<V> values = new ArrayList<>();
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        values.addAll(segment.map.values());
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+    return values;
+  }
+
+  /** A part of the map with a lock of its own. */
+  private static final class Segment<V> {
+
+    private final StampedLock lock = new StampedLock();
+    private final IntObjectMap<V> map = new IntObjectMap<>();
+  }
+}
@@ -0,0 +1,43 @@
+package typeracer.server.utils;
+
+/** The hash function shared by the primitive int-keyed maps. */
+final class IntHash {
+
+  private IntHash() {}
+
+  /**
+   * Spreads the bits of a key over the whole hash, so that both the high bits selecting a segment
+   * and the low bits selecting a slot are well distributed even for ids that differ only in a few
+   * bits. This is the finalizer of MurmurHash3.
+   *
+   * @param key the key to hash
+   * @return the hash of the key
+   */
+  static int mix(int key) {
+    int hash = key;
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  /**
+   * Returns the table capacity for the given number of entries, a power of two keeping the table
+   * at most half full.
+   *
+   * @param expectedSize the number of entries the table should hold without growing
+   * @return the capacity of the table
+   */
+  static int capacityFor(int expectedSize) {
+    if (expectedSize < 0 || expectedSize > 1 << 29) {
+      throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+    }
+    int capacity = 4;
+    while (capacity < 2 * expectedSize) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+}
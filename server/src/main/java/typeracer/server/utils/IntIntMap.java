@@ -0,0 +1,232 @@
+package typeracer.server.utils;
+
+/**
+ * A hash map from primitive int keys to primitive int values, which neither boxes nor allocates an
+ * object per entry. It works like {@link IntObjectMap}, so an entry takes about 16 bytes.
+ *
+ * <p>This class is not thread-safe. However, a lookup never fails or loops forever while the map is
+ * modified concurrently, it may only return a wrong value. This lets {@link ConcurrentIntIntMap}
+ * look up values without locking and validate the result afterward.
+ */
+public final class IntIntMap {
+
+  private static final int DEFAULT_EXPECTED_SIZE = 8;
+
+  // Key 0 marks a free slot, so the value of key 0 is kept apart
+  private Table table;
+  private boolean hasZeroKey;
+  private int zeroValue;
+  private int size;
+
+  /** Constructs a new, empty IntIntMap. */
+  public IntIntMap() {
+    this(DEFAULT_EXPECTED_SIZE);
+  }
+
+  /**
+   * Constructs a new, empty IntIntMap that holds the given number of entries without growing.
+   *
+   * @param expectedSize the expected number of entries
+   */
+  public IntIntMap(int expectedSize) {
+    table = new Table(IntHash.capacityFor(expectedSize));
+  }
+
+  /**
+   * Returns the value of the given key, or the given default value if there is none.
+   *
+   * @param key the key
+   * @param defaultValue the value to return if the map does not contain the key
+   * @return the value of the key, or the default value
+   */
+  public int getOrDefault(int key, int defaultValue) {
+    if (key == 0) {
+      return hasZeroKey ? zeroValue : defaultValue;
+    }
+    Table current = table;
+    int index = find(current.keys, key);
+    return index < 0 ? defaultValue : current.values[index];
+  }
+
+  /**
+   * Returns whether the map contains the given key.
+   *
+   * @param key the key
+   * @return <code>true</code> if the map contains the key, <code>false</code> otherwise
+   */
+  public boolean containsKey(int key) {
+    return key == 0 ? hasZeroKey : find(table.keys, key) >= 0;
+  }
+
+  /**
+   * Associates the given value with the given key, replacing any previous value.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(int key, int value) {
+    if (key == 0) {
+      if (!hasZeroKey) {
+        hasZeroKey = true;
+        size++;
+      }
+      zeroValue = value;
+      return;
+    }
+
+    int index = find(table.keys, key);
+    if (index >= 0) {
+      table.values[index] = value;
+      return;
+    }
+    index = ~index;
+    table.keys[index] = key;
+    table.values[index] = value;
+    size++;
+    if (2 * tableSize() > table.keys.length) {
+      grow();
+    }
+  }
+
+  /**
+   * Associates the given value with the given key, unless the map contains the key already.
+   *
+   * @param key the key
+   * @param value the value
+   * @return <code>true</code> if the value was added, <code>false</code> if the key was present
+   */
+  public boolean putIfAbsent(int key, int value) {
+    if (containsKey(key)) {
+      return false;
+    }
+    put(key, value);
+    return true;
+  }
+
+  /**
+   * Removes the given key only if it is associated with the given value.
+   *
+   * @param key the key
+   * @param value the value the key must be associated with
+   * @return <code>true</code> if the key was removed, <code>false</code> otherwise
+   */
+  public boolean remove(int key, int value) {
+    if (key == 0) {
+      if (!hasZeroKey || zeroValue != value) {
+        return false;
+      }
+      hasZeroKey = false;
+      size--;
+      return true;
+    }
+
+    int index = find(table.keys, key);
+    if (index < 0 || table.values[index] != value) {
+      return false;
+    }
+    removeAt(index);
+    size--;
+    return true;
+  }
+
+  /**
+   * Replaces the value of the given key only if it is associated with the given old value.
+   *
+   * @param key the key
+   * @param oldValue the value the key must be associated with
+   * @param newValue the new value of the key
+   * @return <code>true</code> if the value was replaced, <code>false</code> otherwise
+   */
+  public boolean replace(int key, int oldValue, int newValue) {
+    if (!remove(key, oldValue)) {
+      return false;
+    }
+    put(key, newValue);
+    return true;
+  }
+
+  /**
+   * Returns the number of entries.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  private int tableSize() {
+    return hasZeroKey ? size - 1 : size;
+  }
+
+  /**
+   * Returns the slot holding the given key, or the complement of the free slot the key belongs
+   * into. Stops after visiting every slot once, so it terminates even on a table modified
+   * concurrently.
+   */
+  private static int find(int[] keys, int key) {
+    int mask = keys.length - 1;
+    int index = IntHash.mix(key) & mask;
+    for (int probes = 0; probes <= mask; probes++) {
+      int current = keys[index];
+      if (current == key) {
+        return index;
+      }
+      if (current == 0) {
+        break;
+      }
+      index = (index + 1) & mask;
+    }
+    return ~index;
+  }
+
+  /**
+   * Empties the given slot and moves later entries of the same probe sequence back, so lookups
+   * never have to skip deleted slots.
+   */
+  private void removeAt(int index) {
+    int[] keys = table.keys;
+    int[] values = table.values;
+    int mask = keys.length - 1;
+    int free = index;
+    int next = (free + 1) & mask;
+    while (keys[next] != 0) {
+      int home = IntHash.mix(keys[next]) & mask;
+      // The entry may move to the free slot only if that does not put it before its home slot
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        values[free] = values[next];
+        free = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[free] = 0;
+    values[free] = 0;
+  }
+
+  private void grow() {
+    // The old table stays intact, so concurrent lookups are not disturbed
+    Table old = table;
+    Table grown = new Table(old.keys.length * 2);
+    for (int i = 0; i < old.keys.length; i++) {
+      int key = old.keys[i];
+      if (key != 0) {
+        int index = ~find(grown.keys, key);
+        grown.keys[index] = key;
+        grown.values[index] = old.values[i];
+      }
+    }
+    table = grown;
+  }
+
+  /** The slots of the map. Both arrays are replaced together, so they always have equal length. */
+  private static final class Table {
+
+    private final int[] keys;
+    private final int[] values;
+
+    private Table(int capacity) {
+      keys = new int[capacity];
+      values = new int[capacity];
+    }
+  }
+}
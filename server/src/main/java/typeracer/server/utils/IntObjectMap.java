@@ -0,0 +1,288 @@
+package typeracer.server.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A hash map from primitive int keys to objects, which neither boxes keys nor allocates an object
+ * per entry. Keys and values are kept in two arrays, and collisions are resolved by linear probing.
+ * The table is kept at most half full, so an entry takes about 16 bytes, compared to about 50 bytes
+ * for a {@link java.util.HashMap} entry with its boxed key. Null values are not supported.
+ *
+ * <p>This class is not thread-safe. However, a lookup never fails or loops forever while the map is
+ * modified concurrently, it may only return a wrong value. This lets {@link ConcurrentIntObjectMap}
+ * look up values without locking and validate the result afterward.
+ *
+ * @param <V> the type of the values
+ */
+public final class IntObjectMap<V> {
+
+  private static final int DEFAULT_EXPECTED_SIZE = 8;
+
+  // Key 0 marks a free slot, so the value of key 0 is kept apart
+  private Table table;
+  private V zeroValue;
+  private int size;
+
+  /** Constructs a new, empty IntObjectMap. */
+  public IntObjectMap() {
+    this(DEFAULT_EXPECTED_SIZE);
+  }
+
+  /**
+   * Constructs a new, empty IntObjectMap that holds the given number of entries without growing.
+   *
+   * @param expectedSize the expected number of entries
+   */
+  public IntObjectMap(int expectedSize) {
+    table = new Table(IntHash.capacityFor(expectedSize));
+  }
+
+  /**
+   * Returns the value of the given key.
+   *
+   * @param key the key
+   * @return the value of the key, or null if the map does not contain the key
+   */
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    if (key == 0) {
+      return zeroValue;
+    }
+    Table current = table;
+    int index = find(current.keys, key);
+    return index < 0 ? null : (V) current.values[index];
+  }
+
+  /**
+   * Returns the value of the given key, or the given default value if there is none.
+   *
+   * @param key the key
+   * @param defaultValue the value to return if the map does not contain the key
+   * @return the value of the key, or the default value
+   */
+  public V getOrDefault(int key, V defaultValue) {
+    V value = get(key);
+    return value != null ? value : defaultValue;
+  }
+
+  /**
+   * Returns whether the map contains the given key.
+   *
+   * @param key the key
+   * @return <code>true</code> if the map contains the key, <code>false</code> otherwise
+   */
+  public boolean containsKey(int key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Associates the given value with the given key, replacing any previous value.
+   *
+   * @param key the key
+   * @param value the value, must not be null
+   * @return the previous value of the key, or null if there was none
+   */
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    Objects.requireNonNull(value);
+    if (key == 0) {
+      V previous = zeroValue;
+      zeroValue = value;
+      if (previous == null) {
+        size++;
+      }
+      return previous;
+    }
+
+    int index = find(table.keys, key);
+    if (index >= 0) {
+      V previous = (V) table.values[index];
+      table.values[index] = value;
+      return previous;
+    }
+    index = ~index;
+    table.keys[index] = key;
+    table.values[index] = value;
+    size++;
+    if (2 * tableSize() > table.keys.length) {
+      grow();
+    }
+    return null;
+  }
+
+  /**
+   * Removes the given key.
+   *
+   * @param key the key
+   * @return the removed value, or null if the map did not contain the key
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    if (key == 0) {
+      V previous = zeroValue;
+      if (previous != null) {
+        zeroValue = null;
+        size--;
+      }
+      return previous;
+    }
+
+    int index = find(table.keys, key);
+    if (index < 0) {
+      return null;
+    }
+    V previous = (V) table.values[index];
+    removeAt(index);
+    size--;
+    return previous;
+  }
+
+  /**
+   * Removes the given key only if it is associated with the given value.
+   *
+   * @param key the key
+   * @param value the value the key must be associated with
+   * @return <code>true</code> if the key was removed, <code>false</code> otherwise
+   */
+  public boolean remove(int key, V value) {
+    if (value == null || !value.equals(get(key))) {
+      return false;
+    }
+    remove(key);
+    return true;
+  }
+
+  /**
+   * Returns the number of entries.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the map is empty.
+   *
+   * @return <code>true</code> if the map contains no entries, <code>false</code> otherwise
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns all keys, in no particular order.
+   *
+   * @return a new array of all keys
+   */
+  public int[] keys() {
+    int[] keys = new int[size];
+    int count = 0;
+    if (zeroValue != null) {
+      keys[count++] = 0;
+    }
+    for (int key : table.keys) {
+      if (key != 0) {
+        keys[count++] = key;
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Returns all values, in no particular order.
+   *
+   * @return a new list of all values
+   */
+  @SuppressWarnings("unchecked")
+  public List<V> values() {
+    List<V> values = new ArrayList<>(size);
+    if (zeroValue != null) {
+      values.add(zeroValue);
+    }
+    for (Object value : table.values) {
+      if (value != null) {
+        values.add((V) value);
+      }
+    }
+    return values;
+  }
+
+  private int tableSize() {
+    return zeroValue == null ? size : size - 1;
+  }
+
+  /**
+   * Returns the slot holding the given key, or the complement of the free slot the key belongs
+   * into. Stops after visiting every slot once, so it terminates even on a table modified
+   * concurrently.
+   */
+  private static int find(int[] keys, int key) {
+    int mask = keys.length - 1;
+    int index = IntHash.mix(key) & mask;
+    for (int probes = 0; probes <= mask; probes++) {
+      int current = keys[index];
+      if (current == key) {
+        return index;
+      }
+      if (current == 0) {
+        break;
+      }
+      index = (index + 1) & mask;
+    }
+    return ~index;
+  }
+
+  /**
+   * Empties the given slot and moves later entries of the same probe sequence back, so lookups
+   * never have to skip deleted slots.
+   */
+  private void removeAt(int index) {
+    int[] keys = table.keys;
+    Object[] values = table.values;
+    int mask = keys.length - 1;
+    int free = index;
+    int next = (free + 1) & mask;
+    while (keys[next] != 0) {
+      int home = IntHash.mix(keys[next]) & mask;
+      // The entry may move to the free slot only if that does not put it before its home slot
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        values[free] = values[next];
+        free = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[free] = 0;
+    values[free] = null;
+  }
+
+  private void grow() {
+    // The old table stays intact, so concurrent lookups are not disturbed
+    Table old = table;
+    Table grown = new Table(old.keys.length * 2);
+    for (int i = 0; i < old.keys.length; i++) {
+      int key = old.keys[i];
+      if (key != 0) {
+        int index = ~find(grown.keys, key);
+        grown.keys[index] = key;
+        grown.values[index] = old.values[i];
+      }
+    }
+    table = grown;
+  }
+
+  /** The slots of the map. Both arrays are replaced together, so they always have equal length. */
+  private static final class Table {
+
+    private final int[] keys;
+    private final Object[] values;
+
+    private Table(int capacity) {
+      keys = new int[capacity];
+      values = new Object[capacity];
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package typeracer.server.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Reports virtual threads that blocked while being pinned to their carrier thread, e.g. inside a
+ * <code>synchronized</code> block. The events are taken from the JDK Flight Recorder, so this
+ * works without any JVM flags and without noticeable overhead. The reported events are counted as
+ * <code>threads.pinned</code> in the {@link ServerMetrics}.
+ */
+public final class PinnedThreadMonitor implements AutoCloseable {
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final LongAdder PINNED = ServerMetrics.getInstance().counter("threads.pinned");
+
+  private final RecordingStream recordingStream = new RecordingStream();
+
+  private PinnedThreadMonitor(Duration threshold) {
+    recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    recordingStream.onEvent(PINNED_EVENT, this::report);
+  }
+
+  /**
+   * Creates a new PinnedThreadMonitor and starts listening for pinning events in the background.
+   *
+   * @param threshold the minimum duration a virtual thread has to be pinned to be reported
+   * @return a new running PinnedThreadMonitor instance
+   */
+  public static PinnedThreadMonitor start(Duration threshold) {
+    PinnedThreadMonitor monitor = new PinnedThreadMonitor(threshold);
+    monitor.recordingStream.startAsync();
+    return monitor;
+  }
+
+  private void report(RecordedEvent event) {
+    PINNED.increment();
+    RecordedThread thread = event.getThread();
+    String threadName = thread == null ? "unknown" : "#" + thread.getJavaThreadId();
+    if (thread != null && thread.getJavaName() != null && !thread.getJavaName().isEmpty()) {
+      threadName = thread.getJavaName();
+    }
+    System.out.println(
+        "Virtual thread "
+            + threadName
+            + " was pinned for "
+            + event.getDuration().toMillis()
+            + " ms at "
+            + findApplicationFrame(event.getStackTrace()));
+  }
+
+  /** Returns the topmost frame outside the JDK, which usually is the offending monitor. */
+  private static String findApplicationFrame(RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return "an unknown location";
+    }
+    for (RecordedFrame frame : stackTrace.getFrames()) {
+      String className = frame.getMethod().getType().getName();
+      if (!className.startsWith("java.") && !className.startsWith("jdk.")) {
+        return className + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+      }
+    }
+    return "an unknown location";
+  }
+
+  /** Stops listening for pinning events. */
+  @Override
+  public void close() {
+    recordingStream.close();
+  }
+}
@@ -0,0 +1,97 @@
+package typeracer.server.utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of named counters and gauges describing the server's behaviour, e.g. how many frames
+ * were sent and how many writes it took. Counters are cheap to increment from any thread, so hot
+ * paths should look up their {@link LongAdder} once and keep it. Gauges hold the latest value of
+ * something that goes up and down, e.g. a tick period.
+ */
+public final class ServerMetrics {
+
+  private static final ServerMetrics INSTANCE = new ServerMetrics();
+
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+
+  private ServerMetrics() {}
+
+  /**
+   * Returns the singleton instance of ServerMetrics.
+   *
+   * @return the singleton instance of ServerMetrics
+   */
+  public static ServerMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the counter with the given name, creating it if necessary.
+   *
+   * @param name the name of the counter
+   * @return the counter with the given name
+   */
+  public LongAdder counter(String name) {
+    return counters.computeIfAbsent(name, key -> new LongAdder());
+  }
+
+  /**
+   * Sets the gauge with the given name to the given value, creating it if necessary.
+   *
+   * @param name the name of the gauge
+   * @param value the new value of the gauge
+   */
+  public void setGauge(String name, long value) {
+    gauges.computeIfAbsent(name, key -> new AtomicLong()).set(value);
+  }
+
+  /**
+   * Removes the gauge with the given name, e.g. because what it measured no longer exists.
+   *
+   * @param name the name of the gauge
+   */
+  public void removeGauge(String name) {
+    gauges.remove(name);
+  }
+
+  /**
+   * Returns the current values of all counters and gauges, sorted by name.
+   *
+   * @return the current value of every counter and gauge by its name
+   */
+  public SortedMap<String, Long> snapshot() {
+    SortedMap<String, Long> snapshot = new TreeMap<>();
+    counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+    gauges.forEach((name, gauge) -> snapshot.put(name, gauge.get()));
+    return snapshot;
+  }
+
+  /**
+   * Starts a daemon thread printing all counters and gauges in the given interval.
+   *
+   * @param interval the time between two reports
+   */
+  public void startReporting(Duration interval) {
+    Thread.ofPlatform()
+        .name("metrics-reporter")
+        .daemon()
+        .start(
+            () -> {
+              try {
+                while (true) {
+                  Thread.sleep(interval);
+                  System.out.println("Metrics: " + snapshot());
+                }
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+  }
+}
@@ -0,0 +1,44 @@
+package typeracer.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class BigramTrainerTest {
+
+  @Test
+  void testTrain_splitsWordsLikeThePreprocessing() {
+    HashMap<String, HashMap<String, Integer>> counts =
+        BigramTrainer.train("Don't\tstop, don't  STOP!\n\u00e4b\u00e9 stop"); // Drops accents
+    assertEquals(
+        Map.of(
+            "dont", Map.of("stop", 2), "stop", Map.of("dont", 1, "b", 1), "b", Map.of("stop", 1)),
+        counts);
+  }
+
+  @Test
+  void testTrain_inParallelChunks_countsLikeASingleThread() {
+    String[] vocabulary = {"the", "cat", "sat", "on", "a", "mat", "and", "purred"};
+    Random random = new Random(3);
+    StringBuilder corpus = new StringBuilder();
+    for (int i = 0; i < 20_000; i++) {
+      String separator = random.nextBoolean() ? " " : "\n ";
+      corpus.append(vocabulary[random.nextInt(vocabulary.length)]).append(separator);
+    }
+    HashMap<String, HashMap<String, Integer>> expected = new HashMap<>();
+    String[] words = corpus.toString().trim().split("\\s+");
+    for (int i = 0; i < words.length - 1; i++) {
+      expected.computeIfAbsent(words[i], k -> new HashMap<>()).merge(words[i + 1], 1, Integer::sum);
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      assertEquals(expected, BigramTrainer.train(corpus.toString(), pool, 64));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
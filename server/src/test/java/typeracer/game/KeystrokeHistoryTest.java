@@ -0,0 +1,40 @@
+package typeracer.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class KeystrokeHistoryTest {
+  private static final long SECOND = 1_000_000_000L;
+
+  private final KeystrokeHistory history = new KeystrokeHistory();
+
+  @Test
+  void testGetKeystrokes_afterWindowPassed_forgetsOldKeystrokes() {
+    history.record(0, true);
+    history.record(SECOND, false);
+    history.record(6 * SECOND, true);
+    assertEquals(1, history.getKeystrokes(RollingWindow.FIVE_SECONDS, 6 * SECOND));
+    assertEquals(1, history.getCorrectKeystrokes(RollingWindow.FIVE_SECONDS, 6 * SECOND));
+    assertEquals(3, history.getKeystrokes(RollingWindow.FIFTEEN_SECONDS, 6 * SECOND));
+    assertEquals(2, history.getCorrectKeystrokes(RollingWindow.FIFTEEN_SECONDS, 6 * SECOND));
+
+    assertEquals(0, history.getKeystrokes(RollingWindow.FIVE_SECONDS, 11 * SECOND));
+    assertEquals(1, history.getKeystrokes(RollingWindow.FIFTEEN_SECONDS, 16 * SECOND));
+    assertEquals(0, history.getCorrectKeystrokes(RollingWindow.FIFTEEN_SECONDS, 21 * SECOND));
+  }
+
+  @Test
+  void testRecord_moreKeystrokesThanCapacity_countsTheLastOnes() {
+    int keystrokes = 3 * KeystrokeHistory.CAPACITY + 7;
+    for (int i = 0; i < keystrokes; i++) {
+      history.record(i, i % 4 != 0); // Every fourth keystroke is wrong
+    }
+    long now = keystrokes;
+    assertEquals(
+        KeystrokeHistory.CAPACITY, history.getKeystrokes(RollingWindow.FIFTEEN_SECONDS, now));
+    assertEquals(
+        KeystrokeHistory.CAPACITY * 3 / 4,
+        history.getCorrectKeystrokes(RollingWindow.FIFTEEN_SECONDS, now));
+  }
+}
@@ -0,0 +1,121 @@
+package typeracer.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MarkovModelTest {
+  private final MarkovModel model =
+      MarkovModel.fromCounts(Map.of("a", Map.of("b", 2), "b", Map.of("a", 1, "c", 1)));
+
+  private Path file;
+
+  @BeforeEach
+  void createFile() throws IOException {
+    file = Files.createTempFile("test", ".model");
+  }
+
+  @AfterEach
+  void deleteFile() throws IOException {
+    Files.delete(file);
+  }
+
+  @Test
+  void testWriteAndLoad_keepsVocabularyAndTransitions() throws IOException {
+    model.write(file);
+    MarkovModel loaded = MarkovModel.load(file);
+
+    assertEquals(3, loaded.getNumberOfWords());
+    assertEquals("a", loaded.getWord(0));
+    assertEquals("c", loaded.getWord(2));
+    Random random = new Random(4);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(1, loaded.sampleNextWord(0, random)); // "a" is always followed by "b"
+      assertEquals(-1, loaded.sampleNextWord(2, random)); // "c" is never followed by a word
+      assertNotEquals(2, loaded.sampleStartingWord(random)); // Nor does "c" start a text
+    }
+  }
+
+  @Test
+  void testLoad_damagedFile_throws() throws IOException {
+    model.write(file);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+    assertThrows(IOException.class, () -> MarkovModel.load(file));
+
+    bytes[bytes.length - 4] = 7; // The highest byte of the last alias
+    Files.write(file, bytes);
+    assertThrows(IOException.class, () -> MarkovModel.load(file));
+
+    Files.writeString(file, "not a model");
+    assertThrows(IOException.class, () -> MarkovModel.load(file));
+  }
+
+  @Test
+  void testSample_frequenciesMatchTrainingCounts() {
+    // "w0" is followed by ten words, the n-th of them 2^n times, and "wn" by a single word n times
+    Map<String, Map<String, Integer>> counts = new HashMap<>();
+    Map<String, Integer> followingCounts = new HashMap<>();
+    for (int n = 1; n <= 10; n++) {
+      followingCounts.put("w" + n, 1 << n);
+      counts.put("w" + n, Map.of("w" + (n % 10 + 1), n));
+    }
+    counts.put("w0", followingCounts);
+    MarkovModel skewed = MarkovModel.fromCounts(counts);
+    int[] following = new int[11];
+    int[] starting = new int[11];
+    int numberOfDraws = 200_000;
+    Random random = new Random(11);
+    for (int i = 0; i < numberOfDraws; i++) {
+      following[wordNumber(skewed, skewed.sampleNextWord(0, random))]++;
+      starting[wordNumber(skewed, skewed.sampleStartingWord(random))]++;
+    }
+
+    double[] expectedFollowing = new double[11];
+    double[] expectedStarting = new double[11];
+    for (int n = 1; n <= 10; n++) {
+      expectedFollowing[n] = 1 << n;
+      expectedStarting[n] = n;
+    }
+    expectedStarting[0] = 2046; // The number of words following "w0"
+    assertEquals(0, following[0]);
+    assertFrequencies(expectedFollowing, following, numberOfDraws);
+    assertFrequencies(expectedStarting, starting, numberOfDraws);
+  }
+
+  private static int wordNumber(MarkovModel model, int word) {
+    return Integer.parseInt(model.getWord(word).substring(1));
+  }
+
+  /**
+   * Asserts that the observed frequencies pass a chi-squared goodness-of-fit test against the given
+   * counts at a significance level of 0.001, with the critical value by Wilson and Hilferty.
+   */
+  private static void assertFrequencies(double[] counts, int[] observed, int numberOfDraws) {
+    double total = Arrays.stream(counts).sum();
+    double chiSquared = 0;
+    int degreesOfFreedom = -1;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        double expected = numberOfDraws * counts[i] / total;
+        chiSquared += (observed[i] - expected) * (observed[i] - expected) / expected;
+        degreesOfFreedom++;
+      }
+    }
+    double variance = 2.0 / (9 * degreesOfFreedom);
+    double critical = degreesOfFreedom * Math.pow(1 - variance + 3.09 * Math.sqrt(variance), 3);
+    assertTrue(chiSquared < critical, "chi-squared " + chiSquared + " >= " + critical);
+  }
+}
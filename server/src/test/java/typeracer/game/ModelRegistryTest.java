@@ -0,0 +1,69 @@
+package typeracer.game;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModelRegistryTest {
+  @TempDir Path directory;
+  private File first;
+  private File second;
+  private File third;
+
+  @BeforeEach
+  void createCorpora() throws IOException {
+    first = Files.writeString(directory.resolve("first.txt"), "one two one three").toFile();
+    second = Files.writeString(directory.resolve("second.txt"), "four five four six").toFile();
+    third = Files.writeString(directory.resolve("third.txt"), "seven eight seven").toFile();
+  }
+
+  @Test
+  void testGetModel_loadsEachCorpusOnce() throws IOException {
+    ModelRegistry registry = new ModelRegistry(directory, 1 << 20);
+    MarkovModel model = registry.getModel(first);
+
+    assertSame(model, registry.getModel(first));
+    assertTrue(Files.exists(directory.resolve("first.txt.model")));
+    Files.delete(first.toPath()); // Neither the corpus nor the model file is read again
+    Files.delete(directory.resolve("first.txt.model"));
+    assertSame(model, registry.getModel(first));
+  }
+
+  @Test
+  void testGetModel_evictsLeastRecentlyUsed() throws IOException {
+    ModelRegistry registry = new ModelRegistry(directory, 1 << 20);
+    long size = registry.getModel(first).getSizeInBytes();
+    registry.setMaxBytes(2 * size + 1); // Each model takes about the same space
+    MarkovModel firstModel = registry.getModel(first);
+    registry.getModel(second);
+    registry.getModel(first);
+
+    registry.getModel(third);
+
+    assertTrue(registry.contains(first));
+    assertFalse(registry.contains(second));
+    assertTrue(registry.contains(third));
+    assertSame(firstModel, registry.getModel(first));
+  }
+
+  @Test
+  void testGetModel_missingCorpus_throwsAndRetries() throws IOException {
+    ModelRegistry registry = new ModelRegistry(directory, 1 << 20);
+    Files.delete(first.toPath());
+
+    assertThrows(IOException.class, () -> registry.getModel(first));
+    assertFalse(registry.contains(first));
+
+    Files.writeString(first.toPath(), "one two");
+    assertTrue(registry.getModel(first).getNumberOfWords() > 0);
+  }
+}
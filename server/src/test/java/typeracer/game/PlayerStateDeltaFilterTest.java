@@ -0,0 +1,57 @@
+package typeracer.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import typeracer.communication.messages.server.RaceSnapshotNotification.PlayerState;
+
+class PlayerStateDeltaFilterTest {
+  private static final double EPSILON = 0.01;
+  private static final int KEYFRAME_INTERVAL = 3;
+
+  private final PlayerStateDeltaFilter filter =
+      new PlayerStateDeltaFilter(EPSILON, KEYFRAME_INTERVAL);
+
+  private static PlayerState state(int playerId, double progress, double wpm) {
+    return new PlayerState(1.0, playerId, progress, wpm);
+  }
+
+  @Test
+  void testFilter_firstTick_returnsEveryPlayer() {
+    List<PlayerState> states = List.of(state(1, 0.0, 0.0), state(2, 0.0, 0.0));
+    assertEquals(states, filter.filter(states, false));
+  }
+
+  @Test
+  void testFilter_nothingChanged_returnsNothingUntilKeyframe() {
+    List<PlayerState> states = List.of(state(1, 0.5, 60.0), state(2, 0.2, 40.0));
+    filter.filter(states, false);
+    assertTrue(filter.filter(states, false).isEmpty());
+    assertTrue(filter.filter(states, false).isEmpty());
+    assertEquals(states, filter.filter(states, false));
+  }
+
+  @Test
+  void testFilter_changeBelowEpsilon_isAccumulatedUntilItExceedsEpsilon() {
+    filter.filter(List.of(state(1, 0.5, 60.0)), false);
+    assertTrue(filter.filter(List.of(state(1, 0.505, 60.0)), false).isEmpty());
+    PlayerState changed = state(1, 0.515, 60.0);
+    assertEquals(List.of(changed), filter.filter(List.of(changed), false));
+  }
+
+  @Test
+  void testFilter_onlyChangedPlayers_areReturned() {
+    filter.filter(List.of(state(1, 0.5, 60.0), state(2, 0.2, 40.0)), false);
+    PlayerState changed = state(2, 0.3, 45.0);
+    assertEquals(List.of(changed), filter.filter(List.of(state(1, 0.5, 60.1), changed), false));
+  }
+
+  @Test
+  void testFilter_forcedKeyframe_returnsEveryPlayer() {
+    List<PlayerState> states = List.of(state(1, 0.5, 60.0), state(2, 0.2, 40.0));
+    filter.filter(states, false);
+    assertEquals(states, filter.filter(states, true));
+  }
+}
@@ -0,0 +1,52 @@
+package typeracer.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class PlayerStateTest {
+  private final PlayerState state = new PlayerState();
+
+  @Test
+  void testSnapshot_beforePublish_returnsInitialValues() {
+    state.setProgress(0.5);
+    PlayerSnapshot snapshot = state.snapshot();
+    assertEquals(1.0, snapshot.getAccuracy());
+    assertEquals(0.0, snapshot.getProgress());
+    assertEquals(0.0, snapshot.getWordsPerMinute());
+  }
+
+  @Test
+  void testSnapshot_whilePublishingConcurrently_isNeverTorn() throws InterruptedException {
+    state.setAccuracy(0);
+    state.publish();
+    AtomicBoolean running = new AtomicBoolean(true);
+    Thread writer =
+        new Thread(
+            () -> {
+              // Every update publishes the same value thrice, so a torn read shows unequal values
+              for (int i = 1; running.get(); i++) {
+                state.setAccuracy(i);
+                state.setProgress(i);
+                state.setWordsPerMinute(i);
+                state.publish();
+              }
+            });
+    writer.start();
+    try {
+      double last = 0;
+      for (int i = 0; i < 1_000_000; i++) {
+        PlayerSnapshot snapshot = state.snapshot();
+        assertEquals(snapshot.getAccuracy(), snapshot.getProgress());
+        assertEquals(snapshot.getAccuracy(), snapshot.getWordsPerMinute());
+        assertTrue(snapshot.getAccuracy() >= last);
+        last = snapshot.getAccuracy();
+      }
+    } finally {
+      running.set(false);
+      writer.join();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package typeracer.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+class TextPoolTest {
+  @TempDir Path directory;
+  private File corpus;
+  private TextPool textPool;
+
+  @BeforeEach
+  void createCorpus() throws IOException {
+    corpus = Files.writeString(directory.resolve("corpus.txt"), "one two one three").toFile();
+  }
+
+  @AfterEach
+  void stopTextPool() {
+    if (textPool != null) {
+      textPool.stop();
+    }
+  }
+
+  @Test
+  @Timeout(10)
+  void testPoll_emptyPool_isRefilledInTheBackground() throws InterruptedException {
+    textPool = new TextPool(new ModelRegistry(directory, 1 << 20), 3);
+
+    assertNull(textPool.poll(corpus, 5));
+    awaitSize(3, 5);
+    String text = textPool.poll(corpus, 5);
+
+    assertNotNull(text);
+    assertEquals(6, text.split(" ").length); // The first word and five following it
+    awaitSize(3, 5);
+    assertEquals(0, textPool.size(corpus, 10)); // Each length has its own texts
+  }
+
+  @Test
+  void testPoll_withoutCapacity_neverKeepsTexts() {
+    textPool = new TextPool(new ModelRegistry(directory, 1 << 20), 0);
+    textPool.fill(corpus, 5);
+
+    assertNull(textPool.poll(corpus, 5));
+    assertEquals(0, textPool.size(corpus, 5));
+    assertTrue(Files.notExists(directory.resolve("corpus.txt.model"))); // Nothing was generated
+  }
+
+  @Test
+  @Timeout(10)
+  void testPoll_corpusWithoutModel_keepsGeneratingOtherTexts()
+      throws IOException, InterruptedException {
+    textPool = new TextPool(new ModelRegistry(directory, 1 << 20), 3);
+    File empty = Files.writeString(directory.resolve("empty.txt"), "alone").toFile(); // No bigram
+
+    assertNull(textPool.poll(empty, 5));
+    assertNull(textPool.poll(corpus, 5));
+    awaitSize(3, 5);
+    assertEquals(0, textPool.size(empty, 5));
+  }
+
+  private void awaitSize(int size, int words) throws InterruptedException {
+    while (textPool.size(corpus, words) < size) {
+      Thread.sleep(10);
+    }
+  }
+}
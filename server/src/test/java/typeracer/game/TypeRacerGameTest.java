@@ -11,14 +11,21 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import typeracer.communication.messages.server.RaceSnapshotNotification;
+import typeracer.communication.messages.server.RaceSnapshotNotification.PlayerState;
 import typeracer.communication.statuscodes.GameStatus;
+import typeracer.game.timer.RacePace;
 import typeracer.server.session.Session;
+import typeracer.server.utils.BatchTypingResult;
 import typeracer.server.utils.IdentifierGenerator;
 import typeracer.server.utils.TypingResult;
 
@@ -226,4 +233,162 @@ class TypeRacerGameTest {
   void testStopGame() {
     stopGame();
   }
+
+  @Test
+  void testRacePace() {
+    addValidUser();
+    for (int id : playerIds) {
+      game.setPlayerReady(id, true);
+    }
+    game.start();
+    char firstCharacter = game.getTextToType().charAt(0);
+    for (int id : playerIds) {
+      game.typeCharacter(id, firstCharacter);
+    }
+    assertEquals(RacePace.CLOSE, game.getRacePace());
+    game.stop();
+  }
+
+  @Test
+  void testRacePace_onePlayerTyping() {
+    game.setPlayerReady(getValidPlayerId(), true);
+    game.start();
+    game.typeCharacter(getValidPlayerId(), game.getTextToType().charAt(0));
+    assertEquals(RacePace.ACTIVE, game.getRacePace());
+    game.stop();
+  }
+
+  @Test
+  void testTypingStatistics_countCompletedWordsAndCorrectedErrors() {
+    String text = game.getTextToType();
+    int id = getValidPlayerId();
+    int firstSpace = text.indexOf(' ');
+    for (int i = 0; i <= firstSpace; i++) {
+      if (i == 0) {
+        game.typeCharacter(id, '#'); // An error, corrected by the next character
+      }
+      game.typeCharacter(id, text.charAt(i));
+    }
+    Player player = game.getPlayer(id);
+    assertEquals(1, player.getWordsCompleted());
+    assertEquals(1, player.getCorrectedErrors());
+    assertTrue(player.getGrossWordsPerMinute() > player.getNetWordsPerMinute());
+  }
+
+  @Test
+  void testTypingStatistics_lastWordIsCompletedByItsLastCharacter() {
+    RaceText text = new RaceText("a bb  ccc");
+    assertEquals(3, text.getNumberOfWords());
+    assertEquals(2, text.getWordEnd(0));
+    assertEquals(5, text.getWordEnd(1));
+    assertEquals(9, text.getWordEnd(2));
+  }
+
+  @Test
+  void testTypeCharacters_acknowledgesPositionAndFirstError() {
+    String text = game.getTextToType();
+    Player player = game.getPlayer(getValidPlayerId());
+    String batch = text.substring(0, 3) + "#" + text.charAt(3);
+    BatchTypingResult result = game.typeCharacters(player, batch, new int[] {0, 80, 90, 150, 230});
+    assertEquals(5, result.getTypedCharacters());
+    assertEquals(4, result.getTextIndex());
+    assertEquals(3, result.getFirstError());
+    assertEquals(1, player.getCorrectedErrors());
+  }
+
+  @Test
+  void testTypeCharacters_stopsAtEndOfText() {
+    String text = game.getTextToType();
+    Player player = game.getPlayer(getValidPlayerId());
+    BatchTypingResult result = game.typeCharacters(player, text + "xyz", null);
+    assertEquals(text.length(), result.getTypedCharacters());
+    assertEquals(text.length(), result.getTextIndex());
+    assertEquals(-1, result.getFirstError());
+    assertEquals(0, game.typeCharacters(player, "x", null).getTypedCharacters());
+  }
+
+  @Test
+  void testTypeCharacters_decreasingTimeOffsets_throws() {
+    Player player = game.getPlayer(getValidPlayerId());
+    assertThrows(
+        IllegalArgumentException.class, () -> game.typeCharacters(player, "ab", new int[] {5, 0}));
+    assertThrows(
+        IllegalArgumentException.class, () -> game.typeCharacters(player, "ab", new int[] {0}));
+  }
+
+  @Test
+  void testTypeCharacters_offsetsNotStartingAtZero_throws() {
+    Player player = game.getPlayer(getValidPlayerId());
+    int[] timeOffsets = {-2_000_000_000, 2_000_000_000}; // Would overflow an int difference
+    assertThrows(
+        IllegalArgumentException.class, () -> game.typeCharacters(player, "ab", timeOffsets));
+    assertThrows(
+        IllegalArgumentException.class, () -> game.typeCharacters(player, "ab", new int[] {5, 9}));
+    assertEquals(0, player.getTextIndex());
+  }
+
+  @Test
+  void testTypeCharacters_largeOffsets_neverTimeKeystrokesInTheFuture() {
+    String text = game.getTextToType();
+    Player player = game.getPlayer(getValidPlayerId());
+    long before = System.nanoTime();
+    game.typeCharacters(player, text.substring(0, 2), new int[] {0, Integer.MAX_VALUE});
+    assertTrue(player.getLastTypedTime() >= before);
+    assertTrue(player.getLastTypedTime() <= System.nanoTime());
+  }
+
+  @Test
+  void testCreateRaceSnapshot_leavesOutIdlePlayers() throws Exception {
+    BroadcastSettings settings = BroadcastSettings.getInstance();
+    int keyframeInterval = settings.getKeyframeInterval();
+    settings.setKeyframeInterval(Integer.MAX_VALUE); // No keyframe is due during the test
+    Session session = new Session();
+    TypeRacerGame race;
+    try {
+      race = new TypeRacerGame(textSource, session);
+    } finally {
+      settings.setKeyframeInterval(keyframeInterval);
+    }
+    int typingId = idGenerator.generateId();
+    int idleId = idGenerator.generateId();
+    for (int id : List.of(typingId, idleId)) {
+      race.addPlayer(id);
+      race.setPlayerReady(id, true);
+    }
+    race.start();
+    String text = race.getTextToType();
+    int firstSpace = text.indexOf(' ');
+
+    // Both players complete a word, so their words per minute drop while they pause
+    RaceSnapshotNotification keyframe =
+        onSessionLoop(
+            session,
+            () -> {
+              for (int i = 0; i <= firstSpace; i++) {
+                race.typeCharacter(typingId, text.charAt(i));
+                race.typeCharacter(idleId, text.charAt(i));
+              }
+              return race.createRaceSnapshot(true);
+            });
+    Thread.sleep(100);
+    RaceSnapshotNotification snapshot =
+        onSessionLoop(
+            session,
+            () -> {
+              race.typeCharacter(typingId, text.charAt(firstSpace + 1));
+              return race.createRaceSnapshot(false);
+            });
+    race.stop();
+
+    assertEquals(2, keyframe.getPlayers().size());
+    List<PlayerState> players = snapshot.getPlayers();
+    assertEquals(1, players.size());
+    assertEquals(typingId, players.get(0).getPlayerId());
+  }
+
+  private static <T> T onSessionLoop(Session session, Supplier<T> event) throws Exception {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    session.execute(() -> result.complete(event.get()));
+    return result.get(5, TimeUnit.SECONDS);
+  }
 }
@@ -0,0 +1,79 @@
+package typeracer.game.timer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HashedWheelTimerTest {
+  private static final Duration TICK_DURATION = Duration.ofMillis(5);
+  private static final int WHEEL_SIZE = 8;
+
+  private final HashedWheelTimer timer = new HashedWheelTimer(TICK_DURATION, WHEEL_SIZE, 2);
+
+  @AfterEach
+  void stopTimer() {
+    timer.stop();
+  }
+
+  @Test
+  void testSchedule_runsTaskNotBeforeDelay() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    long start = System.nanoTime();
+    timer.schedule(latch::countDown, Duration.ofMillis(30));
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= Duration.ofMillis(30).toNanos());
+  }
+
+  @Test
+  void testSchedule_delayLongerThanOneRound_runsTask() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    long start = System.nanoTime();
+    // The wheel covers 40 ms per round, so this timeout has to survive several rounds
+    timer.schedule(latch::countDown, Duration.ofMillis(150));
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= Duration.ofMillis(150).toNanos());
+  }
+
+  @Test
+  void testSchedule_manyTimeouts_runsEveryTask() throws InterruptedException {
+    int numberOfTimeouts = 10_000;
+    CountDownLatch latch = new CountDownLatch(numberOfTimeouts);
+    for (int i = 0; i < numberOfTimeouts; i++) {
+      timer.schedule(latch::countDown, Duration.ofMillis(i % 100));
+    }
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testCancel_beforeExpiry_taskDoesNotRun() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    HashedWheelTimer.Timeout timeout = timer.schedule(runs::incrementAndGet, Duration.ofMillis(50));
+    assertTrue(timeout.cancel());
+    assertTrue(timeout.isCancelled());
+    Thread.sleep(150);
+    assertEquals(0, runs.get());
+  }
+
+  @Test
+  void testCancel_afterExpiry_returnsFalse() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, Duration.ZERO);
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertFalse(timeout.cancel());
+  }
+
+  @Test
+  void testSchedule_afterStop_throwsException() {
+    timer.start();
+    timer.stop();
+    assertThrows(IllegalStateException.class, () -> timer.schedule(() -> {}, Duration.ZERO));
+  }
+}
@@ -0,0 +1,85 @@
+package typeracer.server;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** Runs clients against the event loops over a real loopback connection. */
+@Timeout(7)
+public class NonBlockingServerTest {
+
+  private static final int READ_TIMEOUT_MILLIS = 5000;
+  private static final Pattern SESSION_ID = Pattern.compile(".*\"sessionId\":(\\d+).*");
+
+  @Test
+  public void testServer_eventLoops_handshakeCreateAndJoinSession() throws IOException {
+    try (ServerSocketChannel serverChannel =
+        ServerSocketChannel.open()
+            .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+      TestUtils.startServer(serverChannel.socket());
+      int port = serverChannel.socket().getLocalPort();
+
+      try (Socket host = connect(port);
+          Socket guest = connect(port)) {
+        BufferedReader hostIn = reader(host);
+        BufferedReader guestIn = reader(guest);
+
+        send(host, "{\"messageType\":\"HandshakeRequest\",\"playerName\":\"Host\"}");
+        assertTrue(
+            receive(hostIn, "HandshakeResponse").matches(".*\"connectionStatus\":\"ACCEPTED\".*"));
+        send(host, "{\"messageType\":\"CreateSessionRequest\"}");
+        Matcher created = SESSION_ID.matcher(receive(hostIn, "CreateSessionResponse"));
+        assertTrue(created.matches());
+        int sessionId = Integer.parseInt(created.group(1));
+
+        send(guest, "{\"messageType\":\"HandshakeRequest\",\"playerName\":\"Guest\"}");
+        receive(guestIn, "HandshakeResponse");
+        send(guest, "{\"messageType\":\"JoinSessionRequest\",\"sessionId\":" + sessionId + "}");
+        assertTrue(
+            receive(guestIn, "JoinSessionResponse").matches(".*\"joinStatus\":\"ACCEPTED\".*"));
+        assertTrue(
+            receive(hostIn, "PlayerUpdateNotification").matches(".*\"playerName\":\"Guest\".*"));
+      }
+    }
+  }
+
+  private static Socket connect(int port) throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+    return socket;
+  }
+
+  private static BufferedReader reader(Socket socket) throws IOException {
+    return new BufferedReader(
+        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  private static void send(Socket socket, String json) throws IOException {
+    OutputStream out = socket.getOutputStream();
+    out.write((json + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  /** Reads lines until a message of the given type arrives, skipping all others. */
+  private static String receive(BufferedReader in, String messageType) throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (line.matches(".*\"messageType\":\"" + messageType + "\".*")) {
+        return line;
+      }
+    }
+    throw new IOException("Connection closed before a " + messageType + " arrived");
+  }
+}
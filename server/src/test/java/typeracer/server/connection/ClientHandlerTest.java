@@ -0,0 +1,107 @@
+package typeracer.server.connection;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import typeracer.communication.messages.server.JoinSessionResponse;
+import typeracer.communication.statuscodes.PermissionStatus;
+import typeracer.communication.statuscodes.Reason;
+import typeracer.server.mockobjects.MockSocket;
+
+class ClientHandlerTest {
+
+  // Below the ids of the IdentifierGenerator, so they are not taken by other tests
+  private static final int CLIENT_ID = 100_100;
+
+  @Test
+  @Timeout(7)
+  void testDisconnectSlowConsumer_writerBlockedInWrite_closesConnection()
+      throws InterruptedException {
+    StalledSocket socket = new StalledSocket();
+    ClientHandler clientHandler = ClientHandler.create(socket, CLIENT_ID, 1, Duration.ZERO);
+    new Thread(clientHandler).start();
+    JoinSessionResponse message =
+        new JoinSessionResponse(PermissionStatus.ACCEPTED, Reason.SUCCESS);
+
+    try {
+      clientHandler.sendMessage(message);
+      socket.writing.await(); // The writer is stuck, so the queue fills up
+      clientHandler.sendMessage(message);
+      assertFalse(clientHandler.isClosed());
+      clientHandler.sendMessage(message);
+
+      for (int i = 0; i < 500 && !clientHandler.isClosed(); i++) {
+        Thread.sleep(10);
+      }
+      assertTrue(clientHandler.isClosed(), "The slow client was not disconnected");
+    } finally {
+      socket.close();
+    }
+  }
+
+  /**
+   * A socket whose receiver never reads and never sends anything. Reads and writes block until the
+   * socket is closed, and like on a real socket, interrupts do not end a blocked write.
+   */
+  private static final class StalledSocket extends MockSocket {
+    private final CountDownLatch writing;
+    private final CountDownLatch closed;
+
+    private StalledSocket() {
+      this(new CountDownLatch(1), new CountDownLatch(1));
+    }
+
+    private StalledSocket(CountDownLatch writing, CountDownLatch closed) {
+      super(
+          new InputStream() {
+            @Override
+            public int read() {
+              awaitUninterruptibly(closed);
+              return -1;
+            }
+          },
+          new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+              write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+              writing.countDown();
+              awaitUninterruptibly(closed);
+              throw new IOException("Socket closed");
+            }
+          });
+      this.writing = writing;
+      this.closed = closed;
+    }
+
+    @Override
+    public void close() {
+      super.close();
+      closed.countDown();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+      boolean interrupted = false;
+      while (latch.getCount() > 0) {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
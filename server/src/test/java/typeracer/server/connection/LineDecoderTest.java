@@ -0,0 +1,56 @@
+package typeracer.server.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LineDecoderTest {
+
+  private final List<String> lines = new ArrayList<>();
+
+  @Test
+  void testDecode_lineSplitAcrossBuffers_keepsPartialLine() throws IOException {
+    LineDecoder lineDecoder = new LineDecoder(1024);
+    byte[] bytes = "{\"playerName\":\"Jürgen\"}\n".getBytes(StandardCharsets.UTF_8);
+    int umlaut = "{\"playerName\":\"J".length(); // Splits the two bytes of the umlaut
+
+    lineDecoder.decode(ByteBuffer.wrap(bytes, 0, 5), lines::add);
+    lineDecoder.decode(ByteBuffer.wrap(bytes, 5, umlaut + 1 - 5), lines::add);
+    assertEquals(List.of(), lines);
+    lineDecoder.decode(ByteBuffer.wrap(bytes, umlaut + 1, bytes.length - umlaut - 1), lines::add);
+
+    assertEquals(List.of("{\"playerName\":\"Jürgen\"}"), lines);
+  }
+
+  @Test
+  void testDecode_severalLinesInOneBuffer_decodesAll() throws IOException {
+    LineDecoder lineDecoder = new LineDecoder(1024);
+    ByteBuffer buffer = ByteBuffer.wrap("one\r\ntwo\n\nthree".getBytes(StandardCharsets.UTF_8));
+
+    lineDecoder.decode(buffer, lines::add);
+    assertEquals(0, buffer.remaining());
+    lineDecoder.decode(ByteBuffer.wrap("\n".getBytes(StandardCharsets.UTF_8)), lines::add);
+
+    assertEquals(List.of("one", "two", "", "three"), lines);
+  }
+
+  @Test
+  void testDecode_lineLongerThanMaximum_throws() throws IOException {
+    LineDecoder lineDecoder = new LineDecoder(8);
+    byte[] bytes = new byte[6];
+    Arrays.fill(bytes, (byte) 'x');
+
+    lineDecoder.decode(ByteBuffer.wrap("12345678\n".getBytes(StandardCharsets.UTF_8)), lines::add);
+    lineDecoder.decode(ByteBuffer.wrap(bytes), lines::add);
+
+    assertEquals(List.of("12345678"), lines);
+    assertThrows(IOException.class, () -> lineDecoder.decode(ByteBuffer.wrap(bytes), lines::add));
+  }
+}
@@ -0,0 +1,144 @@
+package typeracer.server.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static typeracer.server.TestUtils.getNetworkIn;
+import static typeracer.server.TestUtils.getNetworkOut;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import typeracer.server.TestUtils;
+import typeracer.server.mockobjects.MockInputStream;
+import typeracer.server.mockobjects.MockServerSocket;
+import typeracer.server.mockobjects.MockSocket;
+import typeracer.server.mockobjects.Sleep;
+
+@Timeout(7)
+class SessionManagerTest {
+
+  // Below the ids of the IdentifierGenerator, so they are not taken by other tests
+  private static final int CLIENT_ID = 100_000;
+  private static final int FIRST_OTHER_CLIENT_ID = 100_001;
+
+  @Test
+  void testJoinSession_routedToNextSessionBeforeJoining_notifiesJoinedSession() throws Exception {
+    final int firstSessionId = 71;
+    final int secondSessionId = 72;
+    SessionManager.getInstance().createNewSession(firstSessionId);
+    SessionManager.getInstance().createNewSession(secondSessionId);
+    MockInputStream residentIn =
+        getNetworkIn(handshakeRequest("Resident") + System.lineSeparator() + join(firstSessionId));
+    ByteArrayOutputStream residentOut = getNetworkOut();
+    TestUtils.startServer(new MockServerSocket(List.of(new MockSocket(residentIn, residentOut))));
+    awaitDone(residentIn);
+
+    // Holds back both sessions until the visitor is routed to the second one
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      block(firstSessionId, release);
+      block(secondSessionId, release);
+      MockInputStream visitorIn =
+          getNetworkIn(
+              handshakeRequest("Visitor")
+                  + System.lineSeparator()
+                  + join(firstSessionId)
+                  + System.lineSeparator()
+                  + "{\"messageType\":\"LeaveSessionRequest\"}"
+                  + System.lineSeparator()
+                  + join(secondSessionId));
+      TestUtils.startServer(
+          new MockServerSocket(List.of(new MockSocket(visitorIn, getNetworkOut()))));
+      awaitDone(visitorIn);
+    } finally {
+      release.countDown();
+    }
+    Thread.sleep(Sleep.BEFORE_TESTING.getMillis());
+
+    boolean notified = false;
+    String sent = residentOut.toString(StandardCharsets.UTF_8);
+    for (String message : sent.split(System.lineSeparator())) {
+      notified |=
+          message.matches(".*\"messageType\":\"PlayerUpdateNotification\".*")
+              && message.matches(".*\"playerName\":\"Visitor\".*");
+    }
+    assertTrue(notified, "The first session was not notified about the visitor joining it");
+  }
+
+  @Test
+  void testJoinSessionById_sessionFull_keepsClientInPreviousSession() throws Exception {
+    final int firstSessionId = 73;
+    final int fullSessionId = 74;
+    SessionManager manager = SessionManager.getInstance();
+    manager.createNewSession(firstSessionId);
+    manager.createNewSession(fullSessionId);
+    ClientContext client = new ClientContext(CLIENT_ID);
+    Session first = manager.routeToSession(client, firstSessionId);
+    assertEquals(
+        SessionManager.OperationStatus.SUCCESS,
+        onSessionLoop(first, () -> manager.joinSessionById(client, firstSessionId)));
+    for (int i = 0; i < Session.MAX_SIZE; i++) {
+      ClientContext other = new ClientContext(FIRST_OTHER_CLIENT_ID + i);
+      Session full = manager.routeToSession(other, fullSessionId);
+      onSessionLoop(full, () -> manager.joinSessionById(other, fullSessionId));
+    }
+
+    Session full = manager.routeToSession(client, fullSessionId);
+    assertEquals(
+        SessionManager.OperationStatus.SESSION_FULL,
+        onSessionLoop(full, () -> manager.joinSessionById(client, fullSessionId)));
+
+    // Characters are still handled by the first session
+    assertSame(first, client.getSession());
+    assertSame(first, manager.getSessionByClientId(CLIENT_ID));
+    assertNotNull(onSessionLoop(first, () -> client.getPlayer(first)));
+    // Disconnecting leaves the session the client is routed to
+    assertTrue(
+        onSessionLoop(first, () -> manager.leaveSession(client, client.getSession().getId())));
+    assertFalse(first.containsPlayer(CLIENT_ID));
+  }
+
+  private static String handshakeRequest(String playerName) {
+    return "{\"messageType\":\"HandshakeRequest\",\"playerName\":\"" + playerName + "\"}";
+  }
+
+  private static String join(int sessionId) {
+    return "{\"messageType\":\"JoinSessionRequest\",\"sessionId\":" + sessionId + "}";
+  }
+
+  private static void awaitDone(MockInputStream networkIn) throws InterruptedException {
+    do {
+      Thread.sleep(10);
+    } while (!networkIn.isDone());
+    Thread.sleep(Sleep.BEFORE_TESTING.getMillis());
+  }
+
+  private static void block(int sessionId, CountDownLatch release) {
+    SessionManager.getInstance()
+        .getSessionLoop(sessionId)
+        .execute(
+            () -> {
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+  }
+
+  private static <T> T onSessionLoop(Session session, Supplier<T> event)
+      throws ExecutionException, InterruptedException {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    session.execute(() -> result.complete(event.get()));
+    return result.get();
+  }
+}
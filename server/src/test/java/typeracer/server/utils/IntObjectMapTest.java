@@ -0,0 +1,94 @@
+package typeracer.server.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class IntObjectMapTest {
+  private final IntObjectMap<String> map = new IntObjectMap<>();
+
+  @Test
+  void testPut_existingKey_replacesValue() {
+    assertNull(map.put(42, "a"));
+    assertEquals("a", map.put(42, "b"));
+    assertEquals("b", map.get(42));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  void testZeroKey_isStoredLikeAnyOtherKey() {
+    map.put(0, "zero");
+    map.put(16, "sixteen");
+    assertEquals("zero", map.get(0));
+    assertEquals(Set.of("zero", "sixteen"), new HashSet<>(map.values()));
+    assertEquals("zero", map.remove(0));
+    assertFalse(map.containsKey(0));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  void testRemove_withValue_onlyRemovesMatchingValue() {
+    map.put(7, "a");
+    assertFalse(map.remove(7, "b"));
+    assertTrue(map.remove(7, "a"));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  void testRandomOperations_behaveLikeHashMap() {
+    // Few distinct keys cause long probe sequences, many removals and several resizes
+    Random random = new Random(1);
+    Map<Integer, String> expected = new HashMap<>();
+    for (int i = 0; i < 100_000; i++) {
+      int key = random.nextInt(-500, 500);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        String value = "v" + i;
+        assertEquals(expected.put(key, value), map.put(key, value));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (int key = -500; key < 500; key++) {
+      assertEquals(expected.get(key), map.get(key));
+    }
+    Set<Integer> keys = new HashSet<>();
+    for (int key : map.keys()) {
+      keys.add(key);
+    }
+    assertEquals(expected.keySet(), keys);
+  }
+
+  @Test
+  void testConcurrentIntIntMap_behavesLikeHashMap() {
+    ConcurrentIntIntMap intMap = new ConcurrentIntIntMap();
+    Random random = new Random(2);
+    Map<Integer, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 100_000; i++) {
+      int key = random.nextInt(-500, 500);
+      int value = random.nextInt(4);
+      switch (random.nextInt(3)) {
+        case 0 -> assertEquals(expected.remove(key, value), intMap.remove(key, value));
+        case 1 -> {
+          boolean absent = expected.putIfAbsent(key, value) == null;
+          assertEquals(absent, intMap.putIfAbsent(key, value));
+        }
+        default -> {
+          expected.put(key, value);
+          intMap.put(key, value);
+        }
+      }
+    }
+    for (int key = -500; key < 500; key++) {
+      assertEquals((int) expected.getOrDefault(key, -1), intMap.getOrDefault(key, -1));
+    }
+  }
+}